@@ -7,7 +7,7 @@ import javax.swing.SwingUtilities;
 
 import arduinoLight.arduino.PortMap;
 import arduinoLight.arduino.SerialConnection;
-import arduinoLight.arduino.amblone.AmbloneTransmission;
+import arduinoLight.arduino.Transmission;
 import arduinoLight.channelholder.ambientlight.Ambientlight;
 import arduinoLight.gui.ChannelModifyPanel;
 import arduinoLight.gui.Gui;
@@ -38,11 +38,11 @@ public class ArduinoLight
 			{
 				PortMap map = new PortMap();
 				SerialConnection connection = new SerialConnection();
-				AmbloneTransmission amblone = new AmbloneTransmission(map);
+				Transmission transmission = new Transmission(map);
 				Ambientlight ambientlight = Model.getInstance().getAmbientlight();
 				
 				Gui.initLookAndFeel();
-				SerialConnectionPanel connectionPanel = new SerialConnectionPanel(connection, amblone, map);
+				SerialConnectionPanel connectionPanel = new SerialConnectionPanel(connection, transmission, map);
 				TabPanel ambiPanel = new AmbientlightPanel(ambientlight);
 				TabPanel chanModPanel = new ChannelModifyPanel();
 				
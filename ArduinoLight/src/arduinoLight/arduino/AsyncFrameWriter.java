@@ -0,0 +1,211 @@
+package arduinoLight.arduino;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import arduinoLight.util.DebugConsole;
+
+/**
+ * Writes frames to an OutputStream in its own thread, so the producer never blocks, even if the stream stalls.
+ * There is only a single slot for the next frame: if a frame is offered before the previous one was written,
+ * the previous one is superseded. That way, a slow stream never delays the latest frame behind stale ones. <br>
+ * The frames are copied into two buffers which are swapped, so nothing is allocated per frame. <br>
+ * thread-safety: offer may be called by any thread, the stream is only used by the writer thread,
+ * which also closes it when it ends.
+ */
+class AsyncFrameWriter implements Runnable
+{
+	private final OutputStream _out;
+	private final Thread _thread;
+	
+	/** guards the mailbox, _stopped, _error and the buffers while they are swapped */
+	private final Object _lock = new Object();
+	private byte[] _pending = new byte[0];
+	private int _pendingLength = 0;
+	private boolean _hasPending = false;
+	private boolean _stopped = false;
+	/** only used by the writer thread */
+	private byte[] _writing = new byte[0];
+	private IOException _error;
+	
+	private final AtomicLong _bytesWritten = new AtomicLong();
+	private final AtomicLong _framesWritten = new AtomicLong();
+	private final AtomicLong _supersededFrames = new AtomicLong();
+	private final AtomicLong _writeTime = new AtomicLong();
+	private volatile long _lastWriteLatency = 0;
+	
+	
+	
+	/** @param name  the name of the writer thread */
+	public AsyncFrameWriter(OutputStream out, String name)
+	{
+		if (out == null)
+			throw new IllegalArgumentException("out was null.");
+		
+		_out = out;
+		_thread = new Thread(this, name);
+		_thread.setDaemon(true);
+	}
+	
+	
+	
+	public void start()
+	{
+		_thread.start();
+	}
+	
+	
+	
+	/**
+	 * Copies the given frame into the mailbox and returns immediately.
+	 * A frame that is still waiting in the mailbox is superseded.
+	 * @throws IllegalStateException  if the writer is stopped or a previous write failed
+	 */
+	public void offer(byte[] bytes, int offset, int length)
+	{
+		synchronized (_lock)
+		{
+			if (_error != null)
+				throw new IllegalStateException(_error);
+			if (_stopped)
+				throw new IllegalStateException("The writer is stopped.");
+			
+			if (_pending.length < length)
+				_pending = new byte[length];
+			System.arraycopy(bytes, offset, _pending, 0, length);
+			_pendingLength = length;
+			if (_hasPending)
+				_supersededFrames.incrementAndGet();
+			_hasPending = true;
+			_lock.notifyAll();
+		}
+	}
+	
+	
+	
+	/**
+	 * Stops the writer thread after the current write and waits up to the given time for it to end.
+	 * A frame that is still waiting in the mailbox is not written.
+	 * The stream is closed by the writer thread when it ends, even if that is after the timeout.
+	 * @return  true if the writer thread has ended, false if it is still blocked in a write
+	 */
+	public boolean stop(long timeoutMillis)
+	{
+		synchronized (_lock)
+		{
+			_stopped = true;
+			_lock.notifyAll();
+		}
+		try
+		{
+			_thread.join(timeoutMillis);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		return !_thread.isAlive();
+	}
+	
+	
+	
+	@Override
+	public void run()
+	{
+		try
+		{
+			writeFrames();
+		}
+		finally
+		{
+			try { _out.close(); } catch (IOException ignored) { ignored.printStackTrace(); }
+		}
+	}
+	
+	
+	
+	/** Writes the offered frames until the writer is stopped or a write fails. */
+	private void writeFrames()
+	{
+		while (true)
+		{
+			int length;
+			synchronized (_lock)
+			{
+				while (!_hasPending && !_stopped)
+				{
+					try
+					{
+						_lock.wait();
+					}
+					catch (InterruptedException e)
+					{
+						_stopped = true;
+					}
+				}
+				if (_stopped)
+					return;
+				
+				byte[] temp = _writing;
+				_writing = _pending;
+				_pending = temp;
+				length = _pendingLength;
+				_hasPending = false;
+			}
+			
+			long start = System.nanoTime();
+			try
+			{
+				_out.write(_writing, 0, length);
+				_out.flush();
+			}
+			catch (IOException ex)
+			{
+				DebugConsole.print("AsyncFrameWriter", "run", "IOException " + ex.toString());
+				synchronized (_lock)
+				{
+					_error = ex;
+					_stopped = true;
+				}
+				return;
+			}
+			long latency = System.nanoTime() - start;
+			_lastWriteLatency = latency;
+			_writeTime.addAndGet(latency);
+			_bytesWritten.addAndGet(length);
+			_framesWritten.incrementAndGet();
+		}
+	}
+	
+	
+	
+	public long getBytesWritten()
+	{
+		return _bytesWritten.get();
+	}
+	
+	public long getFramesWritten()
+	{
+		return _framesWritten.get();
+	}
+	
+	/** Returns the amount of frames that were replaced by a newer frame before they were written. */
+	public long getSupersededFrames()
+	{
+		return _supersededFrames.get();
+	}
+	
+	/** Returns the duration of the last write (including flush) in nanoseconds. */
+	public long getLastWriteLatency()
+	{
+		return _lastWriteLatency;
+	}
+	
+	/** Returns the average duration of a write (including flush) in nanoseconds, 0 if nothing was written. */
+	public long getAverageWriteLatency()
+	{
+		long frames = _framesWritten.get();
+		return frames == 0 ? 0 : _writeTime.get() / frames;
+	}
+}
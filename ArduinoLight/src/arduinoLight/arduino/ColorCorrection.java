@@ -0,0 +1,120 @@
+package arduinoLight.arduino;
+
+import arduinoLight.util.Color;
+
+/**
+ * Corrects colors before they are sent to the LEDs.
+ * The gamma value compensates the non-linear brightness perception, the red, green and blue
+ * factors are used for white balance and to calibrate a single strip. <br>
+ * The correction is compiled into one lookup table per component when it is created,
+ * so applying it needs no floating-point math. <br>
+ * thread-safety: This class is immutable.
+ */
+public class ColorCorrection
+{
+	/** Does not change any color. */
+	public static final ColorCorrection NONE = new ColorCorrection(1, 1, 1, 1);
+	
+	private final double _gamma;
+	private final double _red;
+	private final double _green;
+	private final double _blue;
+	
+	private final byte[] _redTable;
+	private final byte[] _greenTable;
+	private final byte[] _blueTable;
+	
+	
+	
+	/** Creates a correction that only applies the given gamma value. */
+	public ColorCorrection(double gamma)
+	{
+		this(gamma, 1, 1, 1);
+	}
+	
+	
+	
+	/**
+	 * @param gamma  the exponent that is applied to every component, greater than 0. 1 means no correction.
+	 * @param red  the factor for the red component after the gamma correction, between 0 and 1
+	 * @param green  the factor for the green component after the gamma correction, between 0 and 1
+	 * @param blue  the factor for the blue component after the gamma correction, between 0 and 1
+	 */
+	public ColorCorrection(double gamma, double red, double green, double blue)
+	{
+		if (!(gamma > 0) || Double.isInfinite(gamma))
+			throw new IllegalArgumentException("gamma must be greater than 0 but was " + gamma);
+		validateFactor(red);
+		validateFactor(green);
+		validateFactor(blue);
+		
+		_gamma = gamma;
+		_red = red;
+		_green = green;
+		_blue = blue;
+		_redTable = createTable(gamma, red);
+		_greenTable = createTable(gamma, green);
+		_blueTable = createTable(gamma, blue);
+	}
+	
+	
+	
+	/**
+	 * Returns the corrected color of the given ARGB-int. The alpha value is calculated into the components
+	 * before the correction is applied, the returned color is opaque.
+	 */
+	public int apply(int argb)
+	{
+		int r = _redTable[Color.getCalculatedR(argb) & 0xff] & 0xff;
+		int g = _greenTable[Color.getCalculatedG(argb) & 0xff] & 0xff;
+		int b = _blueTable[Color.getCalculatedB(argb) & 0xff] & 0xff;
+		return 0xff000000 | (r << 16) | (g << 8) | b;
+	}
+	
+	
+	
+	public double getGamma()
+	{
+		return _gamma;
+	}
+	
+	public double getRed()
+	{
+		return _red;
+	}
+	
+	public double getGreen()
+	{
+		return _green;
+	}
+	
+	public double getBlue()
+	{
+		return _blue;
+	}
+	
+	
+	
+	private static byte[] createTable(double gamma, double factor)
+	{
+		byte[] table = new byte[256];
+		for (int i = 0; i < table.length; i++)
+		{
+			table[i] = (byte) Math.round(255 * factor * Math.pow(i / 255.0, gamma));
+		}
+		return table;
+	}
+	
+	private static void validateFactor(double factor)
+	{
+		if (!(factor >= 0 && factor <= 1))
+			throw new IllegalArgumentException("The factor must be between 0 and 1 but was " + factor);
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		return "ColorCorrection[gamma " + _gamma + ", r " + _red + ", g " + _green + ", b " + _blue + "]";
+	}
+}
@@ -0,0 +1,100 @@
+package arduinoLight.arduino;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blends the color of one output from the previous to the latest color of its channel, over the time between
+ * two color changes of the channel. That way, an output that is transmitted more often than the channel color
+ * is calculated (i.e. 240 Hz output of a 30 Hz ambientlight) changes smoothly instead of in steps.
+ * The latest color is fully reached one interval after it was set, which delays the output by that interval. <br>
+ * The interval is measured with the color version of the channel (see {@link arduinoLight.channel.Channel#getColorVersion()}),
+ * so it is correct even if the color does not change every time it is set. <br>
+ * thread-safety: This class is not thread-safe.
+ */
+public class ColorInterpolator
+{
+	/** If the channel is not set for a longer time, the next color is not blended. */
+	public static final long MAX_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500);
+	
+	private static final int SHIFT = 16;
+	
+	private Object _source = null;
+	private long _version;
+	private long _versionTime;
+	private long _interval = 0;
+	private int _from;
+	private int _to;
+	private long _changeTime;
+	private int _output;
+	
+	
+	
+	/**
+	 * Returns the blended ARGB-color for the given point in time.
+	 * @param source  identifies the channel, if it differs from the last call, the given color is returned without blending
+	 * @param version  the color version of the channel
+	 * @param argb  the latest color
+	 * @param now  the current time in nanoseconds, see {@link System#nanoTime()}
+	 */
+	public int interpolate(Object source, long version, int argb, long now)
+	{
+		if (source != _source)
+		{
+			_source = source;
+			_version = version;
+			_versionTime = now;
+			_interval = 0;
+			_from = argb;
+			_to = argb;
+			_output = argb;
+			return argb;
+		}
+		
+		if (version != _version)
+		{
+			long elapsed = now - _versionTime;
+			_interval = elapsed > MAX_INTERVAL ? 0 : elapsed;
+			_version = version;
+			_versionTime = now;
+		}
+		if (argb != _to)
+		{
+			_from = _output; //the blending continues from the currently visible color
+			_to = argb;
+			_changeTime = now;
+		}
+		
+		long elapsed = now - _changeTime;
+		if (_interval <= 0 || elapsed >= _interval)
+			_output = _to;
+		else
+			_output = blend(_from, _to, (int) ((elapsed << SHIFT) / _interval));
+		return _output;
+	}
+	
+	
+	
+	/** Indicates if the last returned color was not the latest color yet. */
+	public boolean isInterpolating()
+	{
+		return _output != _to;
+	}
+	
+	
+	
+	/**
+	 * Blends the components of the given ARGB-colors.
+	 * @param weight  the weight of 'to' in 16.16 fixed-point, between 0 and 1 << 16
+	 */
+	private static int blend(int from, int to, int weight)
+	{
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 8)
+		{
+			int f = (from >>> shift) & 0xff;
+			int t = (to >>> shift) & 0xff;
+			result |= (f + (((t - f) * weight) >> SHIFT)) << shift;
+		}
+		return result;
+	}
+}
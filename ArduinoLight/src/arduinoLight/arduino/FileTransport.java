@@ -0,0 +1,206 @@
+package arduinoLight.arduino;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import arduinoLight.framework.ShutdownHandler;
+import arduinoLight.framework.ShutdownListener;
+import arduinoLight.util.DebugConsole;
+
+/**
+ * A Transport that writes the packages to a file through a FileChannel, i.e. to a pty, a device file
+ * like /dev/ttyUSB0 that was configured before, or a regular file that records the output.
+ * The packages are appended to the file. <br>
+ * The bytes are copied into direct ByteBuffers that are reused, so the channel writes them without
+ * another copy and nothing is allocated per package. Several packages can be written at once with a
+ * gathering write, see {@link #transmit(byte[][], int[], int)}. <br>
+ * thread-safety: All methods are synchronized.
+ */
+public class FileTransport implements Transport, ShutdownListener
+{
+	private FileChannel _channel;
+	private Path _path;
+	private int _baudRate = 0;
+	/** direct buffers for transmission, grown when needed */
+	private ByteBuffer[] _buffers = new ByteBuffer[0];
+	
+	
+	
+	/**
+	 * Opens the given file for writing, it is created if it does not exist.
+	 * @param baudRate  the baud rate the device is configured with, 0 if unknown or not applicable
+	 * @throws IllegalStateException  if the transport is already open
+	 * @throws IllegalArgumentException  if the file cannot be opened
+	 */
+	public synchronized void open(Path path, int baudRate)
+	{
+		openChannel(path, baudRate, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+	
+	
+	
+	/**
+	 * Opens the channel with the given options.
+	 * @throws IllegalStateException  if the transport is already open
+	 * @throws IllegalArgumentException  if the file cannot be opened
+	 */
+	protected synchronized void openChannel(Path path, int baudRate, OpenOption... options)
+	{
+		if (_channel != null)
+			throw new IllegalStateException("This FileTransport is already opened.");
+		if (baudRate < 0)
+			throw new IllegalArgumentException("The baud rate cannot be negative.");
+		
+		try
+		{
+			_channel = FileChannel.open(path, options);
+		}
+		catch (IOException ex)
+		{
+			DebugConsole.print("FileTransport", "openChannel", ex.toString());
+			throw new IllegalArgumentException(ex);
+		}
+		_path = path;
+		_baudRate = baudRate;
+		ShutdownHandler.getInstance().addShutdownListener(this);
+		DebugConsole.print("FileTransport", "openChannel", "Opened " + path);
+	}
+	
+	
+	
+	@Override
+	public synchronized void close()
+	{
+		if (_channel == null)
+			return; //the transport is already closed.
+		
+		ShutdownHandler.getInstance().removeShutdownListener(this);
+		try { _channel.close(); } catch (IOException ignored) { ignored.printStackTrace(); }
+		_channel = null;
+		_path = null;
+		_buffers = new ByteBuffer[0];
+		DebugConsole.print("FileTransport", "close", "Closed.");
+	}
+	
+	
+	
+	@Override
+	public synchronized void transmit(byte[] bytes, int offset, int length)
+	{
+		if (_channel == null)
+			throw new IllegalStateException("There is no file opened for transmission!");
+		
+		ensureBuffers(1);
+		ByteBuffer buffer = fill(0, bytes, offset, length);
+		try
+		{
+			while (buffer.hasRemaining())
+				_channel.write(buffer);
+		}
+		catch (IOException ex)
+		{
+			DebugConsole.print("FileTransport", "transmit", "IOException " + ex.toString());
+			throw new IllegalStateException(ex);
+		}
+	}
+	
+	
+	
+	/**
+	 * Transmits the first 'count' packages with a single gathering write,
+	 * package i consists of the first lengths[i] bytes of packages[i].
+	 * This saves a system call per package, i.e. if several devices share the line or
+	 * several frames are pending.
+	 * @throws IllegalStateException if transmission failed, or the transport is closed.
+	 */
+	public synchronized void transmit(byte[][] packages, int[] lengths, int count)
+	{
+		if (_channel == null)
+			throw new IllegalStateException("There is no file opened for transmission!");
+		if (count < 0 || count > packages.length || count > lengths.length)
+			throw new IllegalArgumentException("count must be between 0 and the amount of packages but was " + count);
+		
+		ensureBuffers(count);
+		long remaining = 0;
+		for (int i = 0; i < count; i++)
+		{
+			fill(i, packages[i], 0, lengths[i]);
+			remaining += lengths[i];
+		}
+		try
+		{
+			//A write may be partial (i.e. on a tty), and any package may be empty, so the written bytes are counted.
+			while (remaining > 0)
+				remaining -= _channel.write(_buffers, 0, count);
+		}
+		catch (IOException ex)
+		{
+			DebugConsole.print("FileTransport", "transmit", "IOException " + ex.toString());
+			throw new IllegalStateException(ex);
+		}
+	}
+	
+	
+	
+	private void ensureBuffers(int count)
+	{
+		if (_buffers.length < count)
+			_buffers = Arrays.copyOf(_buffers, count);
+	}
+	
+	
+	
+	/** Copies the bytes into the direct buffer at the given index, which is replaced if it is too small. */
+	private ByteBuffer fill(int index, byte[] bytes, int offset, int length)
+	{
+		ByteBuffer buffer = _buffers[index];
+		if (buffer == null || buffer.capacity() < length)
+		{
+			buffer = ByteBuffer.allocateDirect(Math.max(64, Integer.highestOneBit(length - 1) << 1));
+			_buffers[index] = buffer;
+		}
+		buffer.clear();
+		buffer.put(bytes, offset, length);
+		buffer.flip();
+		return buffer;
+	}
+	
+	
+	
+	@Override
+	public synchronized boolean isOpen()
+	{
+		return _channel != null;
+	}
+	
+	@Override
+	public synchronized int getBaudRate()
+	{
+		return _baudRate;
+	}
+	
+	/** Returns the path of the opened file, null if closed. */
+	public synchronized Path getPath()
+	{
+		return _path;
+	}
+	
+	@Override
+	public void onShutdown()
+	{
+		ShutdownHandler.getInstance().verifyShutdown();
+		close();
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		return "FileTransport";
+	}
+}
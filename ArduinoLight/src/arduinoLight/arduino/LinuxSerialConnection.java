@@ -0,0 +1,113 @@
+package arduinoLight.arduino;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import arduinoLight.util.DebugConsole;
+
+/**
+ * A serial connection on Linux that does not need RXTX and its native libraries.
+ * The device file (i.e. /dev/ttyUSB0 or /dev/ttyACM0) is configured with 'stty' and written through
+ * a FileChannel, see {@link FileTransport}. Any tty can be used, so it can be tested against a pty. <br>
+ * thread-safety: All methods are synchronized.
+ */
+public class LinuxSerialConnection extends FileTransport
+{
+	private static final Path _DEVICE_DIRECTORY = Paths.get("/dev");
+	private static final String _DEVICE_PATTERN = "tty{USB,ACM}*";
+	
+	
+	
+	/** Returns the USB serial devices (/dev/ttyUSB* and /dev/ttyACM*), an empty list if there are none. */
+	public static List<Path> getAvailableDevices()
+	{
+		List<Path> devices = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(_DEVICE_DIRECTORY, _DEVICE_PATTERN))
+		{
+			for (Path device : stream)
+				devices.add(device);
+		}
+		catch (IOException ex)
+		{
+			DebugConsole.print("LinuxSerialConnection", "getAvailableDevices", ex.toString());
+		}
+		Collections.sort(devices);
+		return devices;
+	}
+	
+	
+	
+	/**
+	 * Configures the given tty to raw 8N1 with the given baud rate and opens it for writing.
+	 * @param baudRate This has to match the settings in the arduino-code and must be supported by stty.
+	 * @throws IllegalStateException  if the connection is already open
+	 * @throws IllegalArgumentException  if the device cannot be configured or opened
+	 */
+	@Override
+	public synchronized void open(Path device, int baudRate)
+	{
+		if (isOpen())
+			throw new IllegalStateException("This LinuxSerialConnection is already opened.");
+		if (baudRate <= 0)
+			throw new IllegalArgumentException("The baud rate must be greater than 0 but was " + baudRate);
+		
+		configure(device, baudRate);
+		openChannel(device, baudRate, StandardOpenOption.WRITE);
+	}
+	
+	
+	
+	/** Sets the tty to raw mode with 8 data bits, no parity and 1 stop bit, so that the bytes are sent unchanged. */
+	private static void configure(Path device, int baudRate)
+	{
+		ProcessBuilder builder = new ProcessBuilder("stty", "-F", device.toString(), Integer.toString(baudRate),
+				"raw", "-echo", "cs8", "-parenb", "-cstopb");
+		builder.redirectErrorStream(true);
+		try
+		{
+			Process process = builder.start();
+			String output = readAll(process.getInputStream());
+			int exitCode = process.waitFor();
+			if (exitCode != 0)
+				throw new IllegalArgumentException("Could not configure " + device + ": " + output.trim());
+		}
+		catch (IOException ex)
+		{
+			DebugConsole.print("LinuxSerialConnection", "configure", ex.toString());
+			throw new IllegalArgumentException(ex);
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalArgumentException(ex);
+		}
+	}
+	
+	
+	
+	private static String readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[256];
+		int read;
+		while ((read = in.read(buffer)) != -1)
+			out.write(buffer, 0, read);
+		return out.toString();
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		return "LinuxSerialConnection";
+	}
+}
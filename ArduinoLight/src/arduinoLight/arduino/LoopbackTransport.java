@@ -0,0 +1,96 @@
+package arduinoLight.arduino;
+
+import java.util.Arrays;
+
+/**
+ * A Transport that does not send anything, but counts the transmitted bytes and keeps the last package.
+ * Used to test and benchmark transmissions without hardware. It is open after creation. <br>
+ * thread-safety: All methods are synchronized.
+ */
+public class LoopbackTransport implements Transport
+{
+	private final int _baudRate;
+	private boolean _open = true;
+	private byte[] _lastPackage = new byte[0];
+	private int _lastLength = 0;
+	private long _bytesTransmitted = 0;
+	private long _packagesTransmitted = 0;
+	
+	
+	
+	/** Creates a transport with an unknown baud rate. */
+	public LoopbackTransport()
+	{
+		this(0);
+	}
+	
+	
+	
+	/** @param baudRate  the baud rate that is reported to the transmission, nothing is slowed down. */
+	public LoopbackTransport(int baudRate)
+	{
+		if (baudRate < 0)
+			throw new IllegalArgumentException("The baud rate cannot be negative.");
+		_baudRate = baudRate;
+	}
+	
+	
+	
+	@Override
+	public synchronized boolean isOpen()
+	{
+		return _open;
+	}
+	
+	/** The package is copied into a buffer that is reused, so nothing is allocated per package. */
+	@Override
+	public synchronized void transmit(byte[] bytes, int offset, int length)
+	{
+		if (!_open)
+			throw new IllegalStateException("The transport is closed.");
+		
+		if (_lastPackage.length < length)
+			_lastPackage = new byte[length];
+		System.arraycopy(bytes, offset, _lastPackage, 0, length);
+		_lastLength = length;
+		_bytesTransmitted += length;
+		_packagesTransmitted++;
+	}
+	
+	@Override
+	public synchronized int getBaudRate()
+	{
+		return _baudRate;
+	}
+	
+	@Override
+	public synchronized void close()
+	{
+		_open = false;
+	}
+	
+	
+	
+	/** Returns a copy of the last transmitted package, an empty array if nothing was transmitted. */
+	public synchronized byte[] getLastPackage()
+	{
+		return Arrays.copyOf(_lastPackage, _lastLength);
+	}
+	
+	public synchronized long getBytesTransmitted()
+	{
+		return _bytesTransmitted;
+	}
+	
+	public synchronized long getPackagesTransmitted()
+	{
+		return _packagesTransmitted;
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		return "LoopbackTransport";
+	}
+}
@@ -1,7 +1,6 @@
 package arduinoLight.arduino;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Arrays;
 
 import arduinoLight.channel.Channel;
 import arduinoLight.util.DebugConsole;
@@ -9,16 +8,23 @@ import arduinoLight.util.DebugConsole;
 /**
  * This class maps Channels to Ports which are represented by positive Integers. 
  * By default, every Port is mapped to null. <br> 
- * thread-safety: delegated to the ConcurrentMap.
+ * The ports are stored in an array that is replaced by a changed copy on every change,
+ * so reading is lock-free and a reader can get a consistent snapshot of all ports. <br>
+ * thread-safety: changes are synchronized, the array is never modified after it is published through a volatile field.
  */
 public class PortMap
 {
-	private final ConcurrentMap<Integer, Channel> _map = new ConcurrentHashMap<>();
+	/** The amount of ports, as many as the protocol with the most ports supports (see AdalightProtocol.MAX_LEDS). */
+	public static final int MAX_PORTS = 1 << 16;
+	private static final Channel[] EMPTY = new Channel[0];
+	
+	/** index = port, the last element is never null. */
+	private volatile Channel[] _ports = EMPTY;
 	
 		
 	
 	/**
-	 * @param port  an integer specifying an output port. 0 <= port
+	 * @param port  an integer specifying an output port. 0 <= port < MAX_PORTS
 	 * @param channel  a channel that should be mapped to this output.
 	 * If channel == null, the selected port is cleared.
 	 */
@@ -26,20 +32,37 @@ public class PortMap
 	{
 		validatePort(port);
 		
-		if (channel == null) //if channel == null, the key is removed (every key should have a valid channel)
+		if (channel == null) //if channel == null, the port is cleared (the array only contains valid channels)
 			clearOutput(port);
 		else
-			_map.put(port, channel);
+			replace(port, channel);
 		DebugConsole.print("PortMap", "setOutput", "Port " + port + " set to " + channel);
 	}
 	
 	/** Stops output on the specified port */
 	public void clearOutput(int port)
 	{
-		_map.remove(port);
+		validatePort(port);
+		
+		replace(port, null);
 		DebugConsole.print("AmbloneTransmission", "clearOutput", "Port " + port + " cleared.");
 	}
 	
+	/** Publishes a copy of the ports in which the given port is changed. Trailing unmapped ports are cut off. */
+	private synchronized void replace(int port, Channel channel)
+	{
+		Channel[] ports = _ports;
+		if (channel == null && port >= ports.length)
+			return;
+		
+		Channel[] copy = Arrays.copyOf(ports, Math.max(ports.length, port + 1));
+		copy[port] = channel;
+		int length = copy.length;
+		while (length > 0 && copy[length - 1] == null)
+			length--;
+		_ports = length == copy.length ? copy : Arrays.copyOf(copy, length);
+	}
+	
 	/**
 	 * Returns the Channel that is mapped to the given port,
 	 * or null if currently no channel is mapped to the port.
@@ -48,14 +71,24 @@ public class PortMap
 	{
 		validatePort(port);
 		
-		return _map.get((Integer)port);
+		Channel[] ports = _ports;
+		return port < ports.length ? ports[port] : null;
+	}
+	
+	/**
+	 * Returns all ports at once, index = port. Unmapped ports are null, the length of the array is the highest
+	 * mapped port + 1. The array is not copied and must not be modified; later changes are not visible in it.
+	 */
+	public Channel[] snapshot()
+	{
+		return _ports;
 	}
 	
-	/** Throws IllegalArgumentException if the given port number is < 0 */
+	/** Throws IllegalArgumentException if the given port number is < 0 or >= MAX_PORTS */
 	private void validatePort(int port)
 	{
-		if (port < 0)
+		if (port < 0 || port >= MAX_PORTS)
 			throw new IllegalArgumentException("Port '" + port + "' not supported. " + 
-											   "Must be greater than or equal to 0.");
+											   "Must be between 0 and " + (MAX_PORTS - 1) + ".");
 	}
 }
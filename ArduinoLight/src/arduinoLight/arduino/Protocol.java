@@ -0,0 +1,30 @@
+package arduinoLight.arduino;
+
+/**
+ * A wire protocol, which encodes the colors of the output ports into one package.
+ * Implementations are called for every transmitted frame and must not allocate while encoding. <br>
+ * Every implementation should be stateless and thread-safe.
+ */
+public interface Protocol
+{
+	/** Returns the maximum amount of colors in one package. */
+	public int getMaxPorts();
+	
+	/**
+	 * Returns the amount of colors that is transmitted in the first package after the transmission started,
+	 * so that outputs which were set by a previous transmission are cleared. 0 if not necessary.
+	 */
+	public int getInitialPorts();
+	
+	/** Returns the size of a buffer that can hold any package with the given amount of colors. */
+	public int getMaxPackageSize(int colorCount);
+	
+	/**
+	 * Encodes the first 'count' ARGB-ints of the given array into dest, starting at offset.
+	 * @param count  the amount of colors, between 1 and getMaxPorts()
+	 * @param dest  must have at least getMaxPackageSize(count) bytes left after offset
+	 * @return  the length of the encoded package
+	 * @throws IllegalArgumentException  if count is not supported
+	 */
+	public int encode(int[] argbs, int count, byte[] dest, int offset);
+}
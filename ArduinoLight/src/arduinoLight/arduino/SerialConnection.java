@@ -15,10 +15,13 @@ import arduinoLight.util.DebugConsole;
 
 
 /**
- * This class encapsulates a serial connection. It provides a simple interface (open, close, transmit). <br>
- * thread-safety: There is no need for this class to be thread-safe.
+ * This class encapsulates a serial connection through RXTX. It provides a simple interface (open, close, transmit). <br>
+ * In asynchronous mode, transmit only hands the bytes to a writer thread and returns immediately,
+ * see {@link AsyncFrameWriter}. <br>
+ * thread-safety: All public methods are synchronized. In asynchronous mode, the stream is only used and closed by the
+ * writer thread, which is synchronized by the AsyncFrameWriter.
  */
-public class SerialConnection implements ShutdownListener
+public class SerialConnection implements Transport, ShutdownListener
 {
 	private static final int _TIME_OUT = 2000; //TODO Understand this ...
 	private static final String _APPNAME = "ArduinoLight";
@@ -26,6 +29,13 @@ public class SerialConnection implements ShutdownListener
 	private SerialPort _serialPort;
 	private BufferedOutputStream _serialOutputStream;
 	private boolean _open = false;
+	private boolean _asynchronous = false;
+	/** only used in asynchronous mode */
+	private AsyncFrameWriter _writer;
+	/** the metrics of synchronous mode, asynchronous mode uses the ones of the writer */
+	private long _bytesWritten = 0;
+	private long _framesWritten = 0;
+	private long _writeTime = 0;
 	
 	/**
 	 * Returns an Enumeration of CommPortIdentifiers from which one can be used as a parameter in the 'connect'-method.
@@ -59,6 +69,14 @@ public class SerialConnection implements ShutdownListener
 					SerialPort.STOPBITS_1,
 					SerialPort.PARITY_NONE);
 			_serialOutputStream = new BufferedOutputStream(_serialPort.getOutputStream());
+			_bytesWritten = 0;
+			_framesWritten = 0;
+			_writeTime = 0;
+			if (_asynchronous)
+			{
+				_writer = new AsyncFrameWriter(_serialOutputStream, "SerialConnection-" + _serialPort.getName());
+				_writer.start();
+			}
 			_open = true;
 			ShutdownHandler.getInstance().addShutdownListener(this);
 			DebugConsole.print("SerialConnection", "open", "Connecting successful!");
@@ -73,16 +91,28 @@ public class SerialConnection implements ShutdownListener
 	
 	
 	
-	/** Closes the connection. */
+	/**
+	 * Closes the connection. In asynchronous mode, the writer thread finishes its current write and closes the stream.
+	 * If it is still blocked in a write after the timeout, only the port is closed, which makes the write fail.
+	 */
+	@Override
 	public synchronized void close()
 	{
 		if (!_open)
 			return; //the connection is already closed.
 		
 		ShutdownHandler.getInstance().removeShutdownListener(this);
+		boolean writerClosesStream = _writer != null;
+		if (_writer != null)
+		{
+			if (!_writer.stop(_TIME_OUT))
+				debugprint("close", "The writer is still blocked after " + _TIME_OUT + " ms, closing the port anyway.");
+			_writer = null;
+		}
 		_serialPort.close();
 		_serialPort = null;
-		try { _serialOutputStream.close(); } catch (IOException ignored) { ignored.printStackTrace(); }
+		if (!writerClosesStream)
+			try { _serialOutputStream.close(); } catch (IOException ignored) { ignored.printStackTrace(); }
 		_serialOutputStream = null;
 		_open = false;
 		DebugConsole.print("SerialConnection", "close", "Disconnecting successful!");
@@ -95,6 +125,18 @@ public class SerialConnection implements ShutdownListener
 	 * @param bytes the bytes to transmit.
 	 */
 	public synchronized void transmit(byte[] bytes)
+	{
+		transmit(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * If the connection is open, 'length' bytes of the given array are transmitted, starting at offset.
+	 * This way, a buffer can be reused for every transmission.
+	 * In asynchronous mode, the bytes are copied and written later, a failed write is reported by the next call.
+	 * @throws IllegalStateException if transmission failed, or the connection is closed.
+	 */
+	@Override
+	public synchronized void transmit(byte[] bytes, int offset, int length)
 	{
 		if (!_open)
 		{
@@ -102,10 +144,19 @@ public class SerialConnection implements ShutdownListener
 			throw new IllegalStateException("There is no connection established for transmission!");
 		}
 		
+		if (_writer != null)
+		{
+			_writer.offer(bytes, offset, length);
+			return;
+		}
+		long start = System.nanoTime();
 		try
 		{
-			_serialOutputStream.write(bytes);
+			_serialOutputStream.write(bytes, offset, length);
 			_serialOutputStream.flush();
+			_writeTime += System.nanoTime() - start;
+			_bytesWritten += length;
+			_framesWritten++;
 		}
 		catch(IOException ex)
 		{
@@ -123,6 +174,45 @@ public class SerialConnection implements ShutdownListener
 		close();
 	}
 	
+	/**
+	 * If enabled, the bytes are written by a separate thread and transmit never blocks.
+	 * Only the latest frame is written if the port is slower than the transmissions.
+	 * The change is applied on the next open.
+	 */
+	public synchronized void setAsynchronous(boolean asynchronous)
+	{
+		_asynchronous = asynchronous;
+	}
+	
+	public synchronized boolean isAsynchronous()
+	{
+		return _asynchronous;
+	}
+	
+	//---------- Metrics --------------------------------------
+	/** Returns the amount of bytes written since the connection was opened. */
+	public synchronized long getBytesWritten()
+	{
+		return _writer == null ? _bytesWritten : _writer.getBytesWritten();
+	}
+	
+	/**
+	 * Returns the amount of frames that were replaced by a newer one before they were written.
+	 * Always 0 in synchronous mode, as every frame is written before transmit returns.
+	 */
+	public synchronized long getSupersededFrames()
+	{
+		return _writer == null ? 0 : _writer.getSupersededFrames();
+	}
+	
+	/** Returns the average duration of writing a frame in nanoseconds. */
+	public synchronized long getAverageWriteLatency()
+	{
+		if (_writer != null)
+			return _writer.getAverageWriteLatency();
+		return _framesWritten == 0 ? 0 : _writeTime / _framesWritten;
+	}
+	
 	//---------- Getters ---------------------------------------
 	public synchronized String getPortName()
 	{
@@ -131,6 +221,7 @@ public class SerialConnection implements ShutdownListener
 		return _serialPort.getName();
 	}
 	
+	@Override
 	public synchronized int getBaudRate()
 	{
 		if (_serialPort == null)
@@ -138,6 +229,7 @@ public class SerialConnection implements ShutdownListener
 		return _serialPort.getBaudRate();
 	}
 	
+	@Override
 	public synchronized boolean isOpen()
 	{
 		return _open;
@@ -0,0 +1,661 @@
+package arduinoLight.arduino;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import arduinoLight.arduino.amblone.AmbloneProtocol;
+import arduinoLight.channel.Channel;
+import arduinoLight.framework.FrameScheduler;
+import arduinoLight.framework.ShutdownHandler;
+import arduinoLight.framework.ShutdownListener;
+import arduinoLight.util.Color;
+import arduinoLight.util.DebugConsole;
+import arduinoLight.util.Util;
+
+/**
+ * This class transmits colors from a PortMap through a Transport, i.e. a SerialConnection.
+ * If the transmission is active, the colors of the channels are transmitted.
+ * The colors are encoded by a {@link Protocol}: the amblone protocol (http://amblone.com) by default,
+ * or i.e. {@link arduinoLight.arduino.adalight.AdalightProtocol} for LED strips.
+ * The buffers grow with the amount of mapped ports, up to the maximum of the protocol.
+ * Several transmissions can share one thread, see {@link TransmissionEngine}. <br>
+ * thread-safety: In part, thread-safety is delegated to the PortMap, other methods are synchronized.
+ */
+public class Transmission implements ShutdownListener
+{
+	public static final int MAX_REFRESHRATE = 240;
+	/** The amount of bits that are needed to transmit a byte with 8N1: a start bit, 8 data bits and a stop bit. */
+	public static final int BITS_PER_BYTE = 10;
+	/** The percentage of the line that may be used by a capped refresh rate, the rest absorbs scheduling jitter. */
+	private static final int MAX_LINE_LOAD = 90;
+	/** The time over which the link utilization is measured. */
+	private static final long UTILIZATION_WINDOW = TimeUnit.SECONDS.toNanos(1);
+	private Transport _connection;
+	private ScheduledExecutorService _executor;
+	/** false if the executor is shared with other transmissions */
+	private boolean _ownsExecutor;
+	private ScheduledFuture<?> _future;
+	/** the task of the current start, so a task of an earlier start cannot change the schedule */
+	private Runnable _task;
+	private volatile int _refreshRate = 0;
+	/** the time of the start and the initial delay as a fraction of the period, to keep the phase if the rate is capped */
+	private long _startTime;
+	private double _phase;
+	private volatile boolean _active = false;
+	private volatile boolean _adaptiveScheduling = false;
+	private volatile FrameScheduler _scheduler;
+	private volatile boolean _skipUnchangedFrames = false;
+	private volatile long _keepAliveInterval = TimeUnit.SECONDS.toNanos(1);
+	private volatile boolean _interpolationEnabled = false;
+	private final AtomicLong _skippedFrames = new AtomicLong();
+	private volatile boolean _rateCapping = true;
+	private final AtomicLong _rateLimitedFrames = new AtomicLong();
+	private volatile double _linkUtilization = 0;
+	/** the corrections of single ports (null if not set), replaced by a changed copy on every change */
+	private volatile ColorCorrection[] _corrections = new ColorCorrection[0];
+	/** used for every port without its own correction */
+	private volatile ColorCorrection _defaultCorrection = ColorCorrection.NONE;
+	private final PortMap _map;
+	private final Protocol _protocol;
+	
+	
+	
+	/** Creates a transmission that uses the amblone protocol. */
+	public Transmission(PortMap map)
+	{
+		this(map, new AmbloneProtocol());
+	}
+	
+	
+	
+	/** Creates a transmission that uses the given protocol. */
+	public Transmission(PortMap map, Protocol protocol)
+	{
+		if (map == null || protocol == null)
+			throw new IllegalArgumentException("A given argument was null.");
+		
+		_map = map;
+		_protocol = protocol;
+	}
+	
+	
+	
+	/** Indicates if transmission is currently active. */
+	public boolean isActive()
+	{
+		return _active;
+	}
+	
+	/**
+	 * This method expects an already opened connection.
+	 * Configuring a Transport is not the purpose of this class.
+	 * @param connection  an open connection, i.e. a SerialConnection
+	 * @param refreshRate  the amount of refreshes per second (Hz)
+ 	 * If the given refreshRate is greater than MAX_REFRESHRATE, MAX_REFRESHRATE is used instead.
+	 */
+	public synchronized void start(Transport connection, int refreshRate)
+	{
+		start(connection, refreshRate, null, 0);
+	}
+	
+	/**
+	 * Like {@link #start(Transport, int)}, but the transmission runs on the given executor, which is not shut down on stop.
+	 * @param executor  the executor that is shared with other transmissions, null to create an own one
+	 * @param initialDelay  the time in nanoseconds before the first package is transmitted
+	 */
+	synchronized void start(final Transport connection, int refreshRate, ScheduledExecutorService executor, long initialDelay)
+	{
+		if (connection.isOpen() == false)
+			throw new IllegalArgumentException("the connection must be open!");
+
+		_connection = connection;
+		_skippedFrames.set(0);
+		_rateLimitedFrames.set(0);
+		_linkUtilization = 0;
+		_ownsExecutor = executor == null;
+		_executor = _ownsExecutor ? Executors.newSingleThreadScheduledExecutor() : executor;
+		refreshRate = Math.min(refreshRate, MAX_REFRESHRATE);
+		final int baudRate = connection.getBaudRate();
+		int cappedPorts = 0;
+		if (_rateCapping && baudRate > 0)
+		{
+			int ports = Math.max(Math.max(_protocol.getInitialPorts(), getAmountPortsUsed(_map.snapshot())), 1);
+			cappedPorts = ports;
+			int maxRefreshRate = getMaxRefreshRate(baudRate, _protocol.getMaxPackageSize(ports));
+			if (refreshRate > maxRefreshRate)
+			{
+				DebugConsole.print("Transmission", "start", "refresh rate capped to " + maxRefreshRate
+						+ " Hz, the baud rate " + baudRate + " is too low for " + refreshRate + " Hz");
+				refreshRate = maxRefreshRate;
+			}
+		}
+		_refreshRate = refreshRate;
+		final int initialCappedPorts = cappedPorts;
+		final long period = Util.getPeriod(refreshRate);
+		_startTime = System.nanoTime();
+		_phase = (double) (initialDelay % period) / period;
+		Runnable transmission = new Runnable()
+		{
+			/** the amount of ports for which the refresh rate was capped, 0 if it was not capped yet */
+			private int cappedPorts = initialCappedPorts;
+			private int currentlySetPortsAtArduino = _protocol.getInitialPorts();
+			/** reused for every transmission, so nothing is allocated per package. Grow with the amount of ports. */
+			private int[] colorsForTransmission = new int[0];
+			private byte[] packageBuffer = new byte[0];
+			/** the last transmitted package, used to detect unchanged frames */
+			private byte[] lastPackage = new byte[0];
+			private int lastLength = 0;
+			private long lastTransmissionTime = 0;
+			/** the channels and their color versions at the last transmission, used to skip encoding unchanged frames */
+			private Channel[] lastChannels = new Channel[0];
+			private long[] lastVersions = new long[0];
+			/** the channels and their color versions of the current frame, swapped with the last ones after transmission */
+			private Channel[] channels = new Channel[0];
+			private long[] versions = new long[0];
+			private int lastUsedPorts = 0;
+			private ColorCorrection[] lastCorrections = null;
+			private ColorInterpolator[] interpolators = new ColorInterpolator[0];
+			/** the time at which the last package has left the serial port, if the baud rate is known */
+			private long lineFreeTime = 0;
+			/**
+			 * A frame is only skipped if the line is busy for longer than this. At a capped rate, a package takes
+			 * almost a period, so a tick that is a bit early must not be mistaken for a line that is too slow.
+			 */
+			private long busySlack = period / 4;
+			private long utilizationWindowStart = System.nanoTime();
+			private long utilizationLineTime = 0;
+			
+			public void run()
+			{
+				long now = System.nanoTime();
+				int length = transmitFrame(now);
+				if (baudRate > 0)
+					updateLinkUtilization(length, now); //also if nothing was sent, so the utilization drops
+			}
+			
+			/** Transmits the current frame, if necessary. Returns the length of the transmitted package, 0 if none. */
+			private int transmitFrame(long now)
+			{
+				Channel[] ports = _map.snapshot(); //all ports are read from the same state
+				int currentlySetPortsInMap = getAmountPortsUsed(ports);
+				int currentlyUsedPorts = Math.max(currentlySetPortsInMap, currentlySetPortsAtArduino);
+				if (currentlyUsedPorts < 1)
+					return 0; //If there are no ports in use, there is nothing to transmit.
+				ensureCapacity(currentlyUsedPorts);
+				if (_rateCapping && baudRate > 0 && currentlyUsedPorts > cappedPorts)
+				{
+					cappedPorts = currentlyUsedPorts;
+					long cappedPeriod = capRefreshRate(this, baudRate, currentlyUsedPorts);
+					if (cappedPeriod > 0)
+						busySlack = cappedPeriod / 4;
+				}
+				
+				if (_rateCapping && baudRate > 0 && lineFreeTime - now > busySlack)
+				{
+					_rateLimitedFrames.incrementAndGet();
+					return 0; //The last package is still being sent, another one would only queue up in the buffers.
+				}
+				boolean skip = _skipUnchangedFrames && now - lastTransmissionTime < _keepAliveInterval;
+				ColorCorrection[] corrections = _corrections;
+				ColorCorrection defaultCorrection = _defaultCorrection; //read after _corrections, see setColorCorrection
+				boolean changed = readColorVersions(ports, channels, versions, lastChannels, lastVersions, currentlyUsedPorts)
+						|| currentlyUsedPorts != lastUsedPorts || corrections != lastCorrections;
+				boolean interpolate = _interpolationEnabled;
+				if (skip && !changed && !(interpolate && isInterpolating(interpolators, currentlyUsedPorts)))
+				{
+					_skippedFrames.incrementAndGet();
+					return 0; //No channel was set since the last transmission, so encoding is not necessary.
+				}
+				
+				getColorsForTransmission(ports, colorsForTransmission, currentlyUsedPorts, corrections, defaultCorrection);
+				if (interpolate)
+				{
+					for (int i = 0; i < currentlyUsedPorts; i++)
+						colorsForTransmission[i] = interpolators[i].interpolate(channels[i], versions[i],
+																				colorsForTransmission[i], now);
+				}
+				int length = _protocol.encode(colorsForTransmission, currentlyUsedPorts, packageBuffer, 0);
+				if (skip && isEqual(packageBuffer, lastPackage, length, lastLength))
+				{
+					_skippedFrames.incrementAndGet();
+					commitColorVersions(currentlyUsedPorts, corrections);
+					return 0; //The arduino already shows these colors.
+				}
+				
+				connection.transmit(packageBuffer, 0, length); //not _connection, a run may still be in progress after stop
+				//The frame only counts as sent if transmit did not throw, otherwise it is encoded and sent again.
+				commitColorVersions(currentlyUsedPorts, corrections);
+				currentlySetPortsAtArduino = currentlySetPortsInMap;
+				lastTransmissionTime = now;
+				lastLength = length;
+				byte[] temp = lastPackage;
+				lastPackage = packageBuffer;
+				packageBuffer = temp;
+				return length;
+			}
+			
+			/** Remembers the state of the current frame as the state at the arduino. */
+			private void commitColorVersions(int usedPorts, ColorCorrection[] corrections)
+			{
+				Channel[] tempChannels = lastChannels;
+				lastChannels = channels;
+				channels = tempChannels;
+				long[] tempVersions = lastVersions;
+				lastVersions = versions;
+				versions = tempVersions;
+				lastUsedPorts = usedPorts;
+				lastCorrections = corrections;
+			}
+			
+			/**
+			 * Adds the time the given package needs on the line and updates the utilization at the end of every window.
+			 * Called on every tick, with a length of 0 if nothing was sent.
+			 */
+			private void updateLinkUtilization(int length, long now)
+			{
+				long lineTime = length * BITS_PER_BYTE * TimeUnit.SECONDS.toNanos(1) / baudRate;
+				lineFreeTime = Math.max(now, lineFreeTime) + lineTime;
+				utilizationLineTime += lineTime;
+				long window = now - utilizationWindowStart;
+				if (window >= UTILIZATION_WINDOW)
+				{
+					_linkUtilization = (double) utilizationLineTime / window;
+					utilizationWindowStart = now;
+					utilizationLineTime = 0;
+				}
+			}
+			
+			/** Enlarges the buffers if they are too small for the given amount of ports. */
+			private void ensureCapacity(int ports)
+			{
+				if (ports <= colorsForTransmission.length)
+					return;
+				
+				colorsForTransmission = new int[ports];
+				lastChannels = Arrays.copyOf(lastChannels, ports);
+				lastVersions = Arrays.copyOf(lastVersions, ports);
+				channels = new Channel[ports];
+				versions = new long[ports];
+				interpolators = createInterpolators(interpolators, ports);
+				int packageSize = _protocol.getMaxPackageSize(ports);
+				packageBuffer = new byte[packageSize];
+				lastPackage = Arrays.copyOf(lastPackage, packageSize);
+			}
+		};
+		//TODO uncaughtexceptionhandler
+		_task = transmission;
+		if (_adaptiveScheduling)
+		{
+			_scheduler = new FrameScheduler(_executor, transmission, period);
+			_scheduler.start(initialDelay);
+		}
+		else
+		{
+			_scheduler = null;
+			_future = _executor.scheduleAtFixedRate(transmission, initialDelay, period, TimeUnit.NANOSECONDS);
+		}
+		_active = true;
+		ShutdownHandler.getInstance().addShutdownListener(this);
+		DebugConsole.print("Transmission", "start", "starting successful! Frequency: " + refreshRate);
+	}
+	
+	/**
+	 * Lowers the refresh rate of the running transmission if the worst-case package of the given amount of ports
+	 * does not fit into a period at the given baud rate. Called by the task when more ports are used than before.
+	 * @return  the new period in nanoseconds, 0 if the refresh rate was not changed
+	 */
+	private synchronized long capRefreshRate(Runnable task, int baudRate, int ports)
+	{
+		int maxRefreshRate = getMaxRefreshRate(baudRate, _protocol.getMaxPackageSize(ports));
+		if (!_active || _task != task || _refreshRate <= maxRefreshRate)
+			return 0; //stopped or restarted in the meantime, or the refresh rate is low enough
+		
+		DebugConsole.print("Transmission", "capRefreshRate", "refresh rate capped to " + maxRefreshRate
+				+ " Hz, the baud rate " + baudRate + " is too low for " + ports + " ports at " + _refreshRate + " Hz");
+		_refreshRate = maxRefreshRate;
+		long period = Util.getPeriod(maxRefreshRate);
+		if (_scheduler != null)
+		{
+			_scheduler.setPeriod(period);
+		}
+		else
+		{
+			//The ticks stay at the same fraction of the period after the start, so a TransmissionEngine keeps its stagger.
+			long sinceFirstTick = System.nanoTime() - _startTime - (long) (_phase * period);
+			long delay = period - Math.max(0, sinceFirstTick) % period;
+			_future.cancel(false);
+			_future = _executor.scheduleAtFixedRate(task, delay, period, TimeUnit.NANOSECONDS);
+		}
+		return period;
+	}
+	
+	/**
+	 * This method stops the transmission.
+	 * the connection that was used is passed gets returned.
+	 * If the connection is already stopped, null is returned.
+	 * @returns  the used connection or null if transmission was already stopped.
+	 */
+	public synchronized Transport stop()
+	{
+		if (!_active)
+			return null;
+		
+		_active = false;
+		ShutdownHandler.getInstance().removeShutdownListener(this);
+		if (_scheduler != null)
+			_scheduler.stop(); //a tick that is already scheduled would still run after shutdown
+		else
+			_future.cancel(false);
+		if (_ownsExecutor)
+			_executor.shutdown();
+		_executor = null;
+		_future = null;
+		_task = null;
+		_refreshRate = 0;
+		Transport c = _connection;
+		_connection = null;
+		if (_scheduler != null)
+			DebugConsole.print("Transmission", "stopTransmission", "frames: " + _scheduler.getFrames()
+					+ ", dropped frames: " + _scheduler.getDroppedFrames());
+		DebugConsole.print("Transmission", "stopTransmission", "stopping successful");
+		return c;
+	}
+	
+	/**
+	 * If enabled, a {@link FrameScheduler} is used instead of a fixed rate:
+	 * if a transmission takes too long (i.e. the serial port blocks), the missed transmissions are skipped
+	 * instead of being sent back-to-back, and the rate is lowered while the transmissions are permanently too slow.
+	 * The change is applied on the next start.
+	 */
+	public void setAdaptiveScheduling(boolean adaptive)
+	{
+		_adaptiveScheduling = adaptive;
+	}
+	
+	public boolean isAdaptiveScheduling()
+	{
+		return _adaptiveScheduling;
+	}
+	
+	/**
+	 * Returns the amount of transmissions that were skipped since the last start, because the previous one took too long.
+	 * Only counted if adaptive scheduling is enabled, otherwise 0 is returned.
+	 */
+	public long getDroppedFrames()
+	{
+		FrameScheduler scheduler = _scheduler;
+		return scheduler == null ? 0 : scheduler.getDroppedFrames();
+	}
+	
+	/**
+	 * If enabled, a package is not transmitted if it is identical to the last transmitted package,
+	 * unless the last transmission is longer ago than the keep-alive interval.
+	 * This saves bandwidth and CPU if the colors do not change. Can be changed while active.
+	 */
+	public void setSkipUnchangedFrames(boolean skip)
+	{
+		_skipUnchangedFrames = skip;
+	}
+	
+	public boolean isSkipUnchangedFrames()
+	{
+		return _skipUnchangedFrames;
+	}
+	
+	/**
+	 * Sets the interval after which an unchanged package is transmitted again, even if
+	 * unchanged frames are skipped. Can be changed while active.
+	 * @param millis  the interval in milliseconds, 1000 by default
+	 */
+	public void setKeepAliveInterval(long millis)
+	{
+		if (millis < 0)
+			throw new IllegalArgumentException("The interval cannot be negative.");
+		_keepAliveInterval = TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+	
+	public long getKeepAliveInterval()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(_keepAliveInterval);
+	}
+	
+	/**
+	 * If enabled (default), the refresh rate is capped on start so that the worst-case package of the currently
+	 * mapped ports fits into a period at the baud rate of the connection. If more ports are used later, the refresh
+	 * rate is lowered while active. It is not raised again if ports are removed, until the next start.
+	 * Additionally, a frame is skipped while the previous package still needs more than a quarter period to be sent,
+	 * so packages never pile up in the buffers and the latency stays minimal.
+	 * Has no effect if the baud rate of the connection is unknown. Can be changed while active.
+	 */
+	public void setRateCapping(boolean rateCapping)
+	{
+		_rateCapping = rateCapping;
+	}
+	
+	public boolean isRateCapping()
+	{
+		return _rateCapping;
+	}
+	
+	/** Returns the refresh rate that is used after the rate capping (Hz), 0 if the transmission is not active. */
+	public int getRefreshRate()
+	{
+		return _refreshRate;
+	}
+	
+	/** Returns the amount of frames that were skipped since the last start, because the line was still busy. */
+	public long getRateLimitedFrames()
+	{
+		return _rateLimitedFrames.get();
+	}
+	
+	/**
+	 * Returns the fraction of the time in which the serial line was busy, measured over the last second.
+	 * 1 means the baud rate is fully used. 0 if the baud rate is unknown.
+	 */
+	public double getLinkUtilization()
+	{
+		return _linkUtilization;
+	}
+	
+	/**
+	 * Returns the highest refresh rate at which packages of the given size use at most 90% of the line
+	 * at the given baud rate, at least 1. Without that headroom, a package that is sent a bit late would delay
+	 * all following packages, and the busy line would make frames be skipped.
+	 */
+	public static int getMaxRefreshRate(int baudRate, int packageSize)
+	{
+		return (int) Math.max(1, (long) baudRate * MAX_LINE_LOAD / (100L * BITS_PER_BYTE * packageSize));
+	}
+	
+	/**
+	 * If enabled, the transmitted color of every port is blended from the previous to the latest color of its channel,
+	 * over the time between two color changes (see {@link ColorInterpolator}).
+	 * This makes sense if the refresh rate is higher than the rate at which the colors are calculated.
+	 * Can be changed while active.
+	 */
+	public void setInterpolationEnabled(boolean enabled)
+	{
+		_interpolationEnabled = enabled;
+	}
+	
+	public boolean isInterpolationEnabled()
+	{
+		return _interpolationEnabled;
+	}
+	
+	/** Returns a copy of the given array with the given length, in which every new element is a new interpolator. */
+	private static ColorInterpolator[] createInterpolators(ColorInterpolator[] existing, int length)
+	{
+		ColorInterpolator[] interpolators = Arrays.copyOf(existing, length);
+		for (int i = existing.length; i < interpolators.length; i++)
+			interpolators[i] = new ColorInterpolator();
+		return interpolators;
+	}
+	
+	/** Indicates if one of the first usedPorts interpolators has not reached the latest color yet. */
+	private static boolean isInterpolating(ColorInterpolator[] interpolators, int usedPorts)
+	{
+		for (int i = 0; i < usedPorts; i++)
+		{
+			if (interpolators[i].isInterpolating())
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Sets the correction that is applied to the color of the given port before it is transmitted.
+	 * Can be changed while active.
+	 * @param port  between 0 and the maximum amount of ports of the protocol - 1
+	 */
+	public synchronized void setColorCorrection(int port, ColorCorrection correction)
+	{
+		validatePort(port);
+		if (correction == null)
+			throw new IllegalArgumentException("correction was null.");
+		
+		ColorCorrection[] corrections = Arrays.copyOf(_corrections, Math.max(_corrections.length, port + 1));
+		corrections[port] = correction;
+		_corrections = corrections;
+	}
+	
+	/**
+	 * Sets the correction that is applied to the colors of all ports, the corrections of single ports are removed.
+	 * Can be changed while active.
+	 */
+	public synchronized void setColorCorrection(ColorCorrection correction)
+	{
+		if (correction == null)
+			throw new IllegalArgumentException("correction was null.");
+		
+		_defaultCorrection = correction;
+		_corrections = new ColorCorrection[0]; //written last, so the transmission detects the change
+	}
+	
+	public ColorCorrection getColorCorrection(int port)
+	{
+		validatePort(port);
+		
+		return getCorrection(_corrections, _defaultCorrection, port);
+	}
+	
+	/** Returns the correction of the given port, or the default correction if the port has none. */
+	private static ColorCorrection getCorrection(ColorCorrection[] corrections, ColorCorrection defaultCorrection, int port)
+	{
+		if (port < corrections.length && corrections[port] != null)
+			return corrections[port];
+		return defaultCorrection;
+	}
+	
+	/** Throws IllegalArgumentException if the port is not supported by the protocol. */
+	private void validatePort(int port)
+	{
+		if (port < 0 || port >= _protocol.getMaxPorts())
+			throw new IllegalArgumentException("Port '" + port + "' not supported.");
+	}
+	
+	public Protocol getProtocol()
+	{
+		return _protocol;
+	}
+	
+	/** Returns the amount of packages that were not transmitted since the last start, because they were unchanged. */
+	public long getSkippedFrames()
+	{
+		return _skippedFrames.get();
+	}
+	
+	/** Compares the first length1 / length2 bytes of the given arrays. */
+	private static boolean isEqual(byte[] array1, byte[] array2, int length1, int length2)
+	{
+		if (length1 != length2)
+			return false;
+		for (int i = 0; i < length1; i++)
+		{
+			if (array1[i] != array2[i])
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Searches for the highest supported port that is set in the given snapshot of the PortMap. <br>
+	 * Example: If port 0 is not set, but 1 is set, 2 is returned.
+	 */
+	private int getAmountPortsUsed(Channel[] ports)
+	{
+		int portsUsed = 0;
+		for (int i = Math.min(ports.length, _protocol.getMaxPorts()) - 1; i >= 0; i--)
+		{
+			if (ports[i] != null)
+			{
+				portsUsed = i + 1;
+				break;
+			}
+		}
+		return portsUsed;
+	}
+	
+	/**
+	 * Stores the channels that are mapped to the first usedPorts output ports in the given snapshot and their color versions
+	 * in the given arrays. The versions have to be read before the colors, so that a change is never missed.
+	 * @return  true if a channel or its color differs from the given last channels and versions
+	 */
+	private static boolean readColorVersions(Channel[] ports, Channel[] channels, long[] versions,
+											 Channel[] lastChannels, long[] lastVersions, int usedPorts)
+	{
+		boolean changed = false;
+		for (int i = 0; i < usedPorts; i++)
+		{
+			Channel channel = i < ports.length ? ports[i] : null;
+			long version = channel == null ? 0 : channel.getColorVersion();
+			channels[i] = channel;
+			versions[i] = version;
+			if (channel != lastChannels[i] || version != lastVersions[i])
+				changed = true;
+		}
+		return changed;
+	}
+	
+	/**
+	 * Writes the colors of the channels that are mapped to the output ports in the given snapshot into the given array.
+	 * The array is used for transmission. For every output port that is unmapped, black is written.
+	 * The correction of every port is applied.
+	 * @param result  an array with at least usedPorts elements, to which the ARGB-colors are written
+	 */
+	private static void getColorsForTransmission(Channel[] ports, int[] result, int usedPorts,
+												 ColorCorrection[] corrections, ColorCorrection defaultCorrection)
+	{		
+		for (int i = 0; i < usedPorts; i++)
+		{
+			Channel channel = i < ports.length ? ports[i] : null;
+			
+			if (channel != null)
+				result[i] = getCorrection(corrections, defaultCorrection, i).apply(channel.getARGB());
+			else
+				result[i] = Color.BLACK.getARGB(); //Add black for every output that is not in use.
+		}
+	}
+
+	/**
+	 * Is called from the ShutdownHook to stop the transmission and shutdown the executor.
+	 */
+	@Override
+	public void onShutdown()
+	{
+		ShutdownHandler.getInstance().verifyShutdown();
+		stop();
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		return "Transmission";
+	}
+}
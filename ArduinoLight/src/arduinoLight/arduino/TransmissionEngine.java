@@ -0,0 +1,182 @@
+package arduinoLight.arduino;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import arduinoLight.framework.ShutdownHandler;
+import arduinoLight.framework.ShutdownListener;
+import arduinoLight.util.DebugConsole;
+import arduinoLight.util.Util;
+
+/**
+ * Drives several devices from a single thread. Every device is an Transmission with its own PortMap,
+ * protocol and settings, a Transport and a refresh rate.
+ * The first transmission of the i-th of n devices is delayed by i/n of its period, so the devices do not
+ * wait for each other and every device gets its packages with low jitter. <br>
+ * As all devices share one thread, a Transport should not block for long,
+ * i.e. a SerialConnection should be asynchronous (see {@link SerialConnection#setAsynchronous(boolean)}). <br>
+ * thread-safety: All methods are synchronized.
+ */
+public class TransmissionEngine implements ShutdownListener
+{
+	private final List<Device> _devices = new ArrayList<>();
+	private ScheduledExecutorService _executor;
+	
+	
+	
+	/**
+	 * Adds a device. If the engine is active, its transmission is started immediately.
+	 * The transmission is configured by the caller and must not be started elsewhere.
+	 * @param transport  an open transport
+	 * @param refreshRate  the amount of refreshes per second (Hz) of this device
+	 * @throws IllegalArgumentException  if the transmission was already added or is active, or the transport is closed.
+	 * In that case, the device is not added.
+	 */
+	public synchronized void addDevice(Transmission transmission, Transport transport, int refreshRate)
+	{
+		if (transmission == null || transport == null)
+			throw new IllegalArgumentException("A given argument was null.");
+		if (refreshRate < 1)
+			throw new IllegalArgumentException("The refresh rate must be greater than 0 but was " + refreshRate);
+		if (transmission.isActive() || indexOf(transmission) != -1)
+			throw new IllegalArgumentException("The transmission is already active.");
+		if (transport.isOpen() == false)
+			throw new IllegalArgumentException("The transport must be open!");
+		
+		Device device = new Device(transmission, transport, refreshRate);
+		if (_executor != null)
+			start(device, _devices.size(), _devices.size() + 1);
+		_devices.add(device); //only if it was started, a broken device would prevent every later start.
+	}
+	
+	
+	
+	/**
+	 * Removes the given device and stops its transmission.
+	 * @return  the transport of the device, which is not closed, or null if the device was not added.
+	 */
+	public synchronized Transport removeDevice(Transmission transmission)
+	{
+		int index = indexOf(transmission);
+		if (index == -1)
+			return null;
+		
+		Device device = _devices.remove(index);
+		device._transmission.stop();
+		return device._transport;
+	}
+	
+	
+	
+	/**
+	 * Starts the transmissions of all devices on a new thread. Does nothing if the engine is already active.
+	 * @throws IllegalArgumentException  if the transport of a device was closed.
+	 * In that case, no device is started and the engine stays inactive.
+	 */
+	public synchronized void start()
+	{
+		if (_executor != null)
+			return;
+		
+		_executor = Executors.newSingleThreadScheduledExecutor();
+		int started = 0;
+		try
+		{
+			for (; started < _devices.size(); started++)
+			{
+				start(_devices.get(started), started, _devices.size());
+			}
+		}
+		catch (RuntimeException ex)
+		{
+			for (int i = 0; i < started; i++)
+			{
+				_devices.get(i)._transmission.stop();
+			}
+			_executor.shutdown();
+			_executor = null;
+			throw ex;
+		}
+		ShutdownHandler.getInstance().addShutdownListener(this);
+		DebugConsole.print("TransmissionEngine", "start", "started " + _devices.size() + " devices.");
+	}
+	
+	
+	
+	/** Starts the given device, staggered by its index of the given amount of devices. */
+	private void start(Device device, int index, int count)
+	{
+		long offset = Util.getPeriod(device._refreshRate) * index / count;
+		device._transmission.start(device._transport, device._refreshRate, _executor, offset);
+	}
+	
+	
+	
+	/** Stops the transmissions of all devices, the devices and their transports are kept. */
+	public synchronized void stop()
+	{
+		if (_executor == null)
+			return;
+		
+		ShutdownHandler.getInstance().removeShutdownListener(this);
+		for (Device device : _devices)
+		{
+			device._transmission.stop();
+		}
+		_executor.shutdown();
+		_executor = null;
+		DebugConsole.print("TransmissionEngine", "stop", "stopping successful");
+	}
+	
+	
+	
+	public synchronized boolean isActive()
+	{
+		return _executor != null;
+	}
+	
+	public synchronized int getDeviceCount()
+	{
+		return _devices.size();
+	}
+	
+	private int indexOf(Transmission transmission)
+	{
+		for (int i = 0; i < _devices.size(); i++)
+		{
+			if (_devices.get(i)._transmission == transmission)
+				return i;
+		}
+		return -1;
+	}
+	
+	@Override
+	public void onShutdown()
+	{
+		ShutdownHandler.getInstance().verifyShutdown();
+		stop();
+	}
+	
+	//----------------------------------------------------------
+	private static class Device
+	{
+		private final Transmission _transmission;
+		private final Transport _transport;
+		private final int _refreshRate;
+		
+		public Device(Transmission transmission, Transport transport, int refreshRate)
+		{
+			_transmission = transmission;
+			_transport = transport;
+			_refreshRate = refreshRate;
+		}
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "TransmissionEngine";
+	}
+}
@@ -0,0 +1,24 @@
+package arduinoLight.arduino;
+
+/**
+ * A sink for the packages of a transmission, i.e. a serial port.
+ * The transport is opened by its creator, a transmission only transmits through it. <br>
+ * Every implementation should be thread-safe.
+ */
+public interface Transport
+{
+	public boolean isOpen();
+	
+	/**
+	 * Transmits 'length' bytes of the given array, starting at offset.
+	 * The array may be reused by the caller after this method returned.
+	 * @throws IllegalStateException if transmission failed, or the transport is closed.
+	 */
+	public void transmit(byte[] bytes, int offset, int length);
+	
+	/** Returns the amount of bits per second the transport can carry, 0 if unknown or unlimited. */
+	public int getBaudRate();
+	
+	/** Closes the transport, does nothing if it is already closed. */
+	public void close();
+}
@@ -0,0 +1,70 @@
+package arduinoLight.arduino.adalight;
+
+import arduinoLight.arduino.Protocol;
+import arduinoLight.util.Color;
+
+/**
+ * The Adalight protocol, which is used to drive addressable LED strips with up to 65536 LEDs.
+ * A package consists of a header and 3 bytes (red, green, blue) per LED. The header is "Ada",
+ * followed by the amount of LEDs - 1 as a big-endian 16 bit value and a checksum (high byte ^ low byte ^ 0x55).
+ * There is no escaping, so the size of a package only depends on the amount of LEDs. <br>
+ * thread-safety: This class is stateless, therefore thread-safe.
+ */
+public class AdalightProtocol implements Protocol
+{
+	public static final int MAX_LEDS = 1 << 16;
+	public static final int HEADER_SIZE = 6;
+	
+	
+	
+	@Override
+	public int getMaxPorts()
+	{
+		return MAX_LEDS;
+	}
+	
+	/** The amount of LEDs is fixed by the strip, so nothing has to be cleared. */
+	@Override
+	public int getInitialPorts()
+	{
+		return 0;
+	}
+	
+	@Override
+	public int getMaxPackageSize(int colorCount)
+	{
+		return HEADER_SIZE + colorCount * 3;
+	}
+	
+	@Override
+	public int encode(int[] argbs, int count, byte[] dest, int offset)
+	{
+		if (count < 1 || count > MAX_LEDS)
+			throw new IllegalArgumentException("Only 1 to " + MAX_LEDS + " Colors supported. Given: " + count);
+		
+		int i = offset;
+		byte high = (byte) ((count - 1) >>> 8);
+		byte low = (byte) (count - 1);
+		dest[i++] = 'A';
+		dest[i++] = 'd';
+		dest[i++] = 'a';
+		dest[i++] = high;
+		dest[i++] = low;
+		dest[i++] = (byte) (high ^ low ^ 0x55);
+		for (int c = 0; c < count; c++)
+		{
+			int argb = argbs[c];
+			dest[i++] = Color.getCalculatedR(argb);
+			dest[i++] = Color.getCalculatedG(argb);
+			dest[i++] = Color.getCalculatedB(argb);
+		}
+		return i - offset;
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		return "Adalight";
+	}
+}
@@ -0,0 +1,158 @@
+package arduinoLight.arduino.amblone;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import arduinoLight.util.Color;
+import arduinoLight.util.RGBColor;
+
+/**
+ * Encodes colors into Amblone packages (startflag, escaped color values, endflag),
+ * directly into a caller-supplied byte-array or ByteBuffer. Nothing is allocated while encoding,
+ * so a transmitting thread can reuse the same buffer for every package. <br>
+ * See {@link AmblonePackage} for an immutable package object. <br>
+ * thread-safety: This class is stateless, therefore thread-safe.
+ */
+public class AmbloneEncoder
+{
+	public static final int MAX_COLORS = 4;
+	
+	/** A buffer of this size can hold any package. */
+	public static final int MAX_PACKAGE_SIZE = getMaxPackageSize(MAX_COLORS);
+	
+	
+	
+	/**
+	 * Returns the size of a package with the given amount of colors if every value has to be escaped.
+	 */
+	public static int getMaxPackageSize(int colorCount)
+	{
+		return 2 + colorCount * (3 * 2);
+	}
+	
+	
+	
+	/**
+	 * Encodes the first 'count' colors of the given array into dest, starting at offset.
+	 * @param count  the amount of colors, between 1 and 4
+	 * @param dest  must have at least getMaxPackageSize(count) bytes left after offset
+	 * @return  the length of the encoded package
+	 * @throws IllegalArgumentException  if count is not between 1 and 4
+	 */
+	public static int encode(RGBColor[] colors, int count, byte[] dest, int offset)
+	{
+		int i = offset;
+		dest[i++] = AmbloneFlags.getStartflag(count);
+		for (int c = 0; c < count; c++)
+		{
+			RGBColor color = colors[c];
+			i = putColor(color.getCalculatedR(), color.getCalculatedG(), color.getCalculatedB(), dest, i);
+		}
+		dest[i++] = AmbloneFlags.ENDFLAG;
+		return i - offset;
+	}
+	
+	
+	
+	/**
+	 * Encodes the first 'count' ARGB-ints of the given array into dest, starting at offset.
+	 * No Color objects are needed, see {@link Color#getARGB()}.
+	 * @return  the length of the encoded package
+	 * @see #encode(RGBColor[], int, byte[], int)
+	 */
+	public static int encode(int[] argbs, int count, byte[] dest, int offset)
+	{
+		int i = offset;
+		dest[i++] = AmbloneFlags.getStartflag(count);
+		for (int c = 0; c < count; c++)
+		{
+			int argb = argbs[c];
+			i = putColor(Color.getCalculatedR(argb), Color.getCalculatedG(argb), Color.getCalculatedB(argb), dest, i);
+		}
+		dest[i++] = AmbloneFlags.ENDFLAG;
+		return i - offset;
+	}
+	
+	
+	
+	/**
+	 * Encodes the given colors into dest, starting at offset.
+	 * @param colors  between 1 and 4 colors
+	 * @return  the length of the encoded package
+	 * @see #encode(RGBColor[], int, byte[], int)
+	 */
+	public static int encode(List<? extends RGBColor> colors, byte[] dest, int offset)
+	{
+		int count = colors.size();
+		int i = offset;
+		dest[i++] = AmbloneFlags.getStartflag(count);
+		for (int c = 0; c < count; c++)
+		{
+			RGBColor color = colors.get(c);
+			i = putColor(color.getCalculatedR(), color.getCalculatedG(), color.getCalculatedB(), dest, i);
+		}
+		dest[i++] = AmbloneFlags.ENDFLAG;
+		return i - offset;
+	}
+	
+	
+	
+	/**
+	 * Encodes the first 'count' colors of the given array at the current position of dest.
+	 * The position of dest is advanced by the length of the package.
+	 * @return  the length of the encoded package
+	 * @throws java.nio.BufferOverflowException  if dest has not enough space left
+	 */
+	public static int encode(RGBColor[] colors, int count, ByteBuffer dest)
+	{
+		if (dest.hasArray() && dest.remaining() >= getMaxPackageSize(count))
+		{
+			int length = encode(colors, count, dest.array(), dest.arrayOffset() + dest.position());
+			dest.position(dest.position() + length);
+			return length;
+		}
+		
+		int start = dest.position();
+		dest.put(AmbloneFlags.getStartflag(count));
+		for (int c = 0; c < count; c++)
+		{
+			RGBColor color = colors[c];
+			putColor(color.getCalculatedR(), color.getCalculatedG(), color.getCalculatedB(), dest);
+		}
+		dest.put(AmbloneFlags.ENDFLAG);
+		return dest.position() - start;
+	}
+	
+	
+	
+	/** Writes the escaped values of a color. Returns the next index. */
+	private static int putColor(byte r, byte g, byte b, byte[] dest, int index)
+	{
+		index = putEscaped(r, dest, index);
+		index = putEscaped(g, dest, index);
+		return putEscaped(b, dest, index);
+	}
+	
+	private static void putColor(byte r, byte g, byte b, ByteBuffer dest)
+	{
+		putEscaped(r, dest);
+		putEscaped(g, dest);
+		putEscaped(b, dest);
+	}
+	
+	/** Writes the value, preceded by an escapeflag if it is reserved. Returns the next index. */
+	private static int putEscaped(byte value, byte[] dest, int index)
+	{
+		if (AmbloneFlags.isReservedValue(value))
+			dest[index++] = AmbloneFlags.ESCFLAG;
+		dest[index++] = value;
+		return index;
+	}
+	
+	private static void putEscaped(byte value, ByteBuffer dest)
+	{
+		if (AmbloneFlags.isReservedValue(value))
+			dest.put(AmbloneFlags.ESCFLAG);
+		dest.put(value);
+	}
+}
@@ -0,0 +1,56 @@
+package arduinoLight.arduino.amblone;
+
+/**
+ * These constants correspond to the byte-values used on the arduino.
+ * The class is package-private to encapsulate the values. <br>
+ * thread-safety: This class is immutable.
+ */
+class AmbloneFlags
+{
+	public static final byte STARTFLAG1 = (byte) 241;
+	public static final byte STARTFLAG2 = (byte) 242;
+	public static final byte STARTFLAG3 = (byte) 243;
+	public static final byte STARTFLAG4 = (byte) 244;
+	public static final byte ENDFLAG = 51;
+	public static final byte ESCFLAG = (byte) 0x99;
+	
+	/** Lookup table, indexed by the unsigned value of a byte. */
+	private static final boolean[] _reserved = new boolean[256];
+	
+	static
+	{
+		_reserved[STARTFLAG1 & 0xff] = true;
+		_reserved[STARTFLAG2 & 0xff] = true;
+		_reserved[STARTFLAG3 & 0xff] = true;
+		_reserved[STARTFLAG4 & 0xff] = true;
+		_reserved[ENDFLAG & 0xff] = true;
+		_reserved[ESCFLAG & 0xff] = true;
+	}
+	
+	/**
+	 * This method is backed by a lookup table and therefore has O(1) complexity without any allocation.
+	 * @param b  the byte that should be tested
+	 * @return  true if the given byte is a 'keyword' used by the protocol, else false
+	 */
+	public static boolean isReservedValue(byte b)
+	{
+		return _reserved[b & 0xff];
+	}
+	
+	/**
+	 * Returns the startflag for the given amount of colors.
+	 * @throws IllegalArgumentException  if colorCount is not between 1 and 4.
+	 */
+	public static byte getStartflag(int colorCount)
+	{
+		switch(colorCount)
+		{
+			case 1: return STARTFLAG1;
+			case 2: return STARTFLAG2;
+			case 3: return STARTFLAG3;
+			case 4: return STARTFLAG4;
+			default: throw new IllegalArgumentException("Illegal value (" + colorCount + ") for 'colorCount'."
+														+ " Should be between 1 and 4.");
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package arduinoLight.arduino.amblone;
+
+import arduinoLight.arduino.Protocol;
+
+/**
+ * The amblone protocol (http://amblone.com), which supports up to 4 colors per package.
+ * Delegates to the {@link AmbloneEncoder}. <br>
+ * thread-safety: This class is stateless, therefore thread-safe.
+ */
+public class AmbloneProtocol implements Protocol
+{
+	@Override
+	public int getMaxPorts()
+	{
+		return AmbloneEncoder.MAX_COLORS;
+	}
+	
+	/** All 4 ports, because the arduino keeps the colors of ports that are not transmitted. */
+	@Override
+	public int getInitialPorts()
+	{
+		return AmbloneEncoder.MAX_COLORS;
+	}
+	
+	@Override
+	public int getMaxPackageSize(int colorCount)
+	{
+		return AmbloneEncoder.getMaxPackageSize(colorCount);
+	}
+	
+	@Override
+	public int encode(int[] argbs, int count, byte[] dest, int offset)
+	{
+		return AmbloneEncoder.encode(argbs, count, dest, offset);
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		return "Amblone";
+	}
+}
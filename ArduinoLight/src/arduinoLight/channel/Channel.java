@@ -17,12 +17,33 @@ public interface Channel
 	public Color getColor();
 	public void setColor(Color color);
 	
+	/**
+	 * Same as getColor().getARGB() and setColor(new Color(argb)), but a Color is only created if necessary.
+	 * Intended for code that updates colors very frequently.
+	 */
+	public int getARGB();
+	public void setARGB(int argb);
+	
+	/**
+	 * Returns a number that is increased every time the Color is set.
+	 * Consumers that poll the Color can compare it to a previously read version to cheaply detect changes.
+	 */
+	public long getColorVersion();
+	
 	public String getName();
 	public void setName(String name);
 	
 	public void addColorListener(ColorListener listener);
 	public void removeColorListener(ColorListener listener);
 	
+	/**
+	 * Adds a listener that is notified synchronously on the thread that sets the Color, without dispatching an Event.
+	 * It is intended for latency-critical consumers and must return quickly, as it delays the setter.
+	 * An exception thrown by the listener is logged and does not reach the setter.
+	 */
+	public void addSynchronousColorListener(ColorListener listener);
+	public void removeSynchronousColorListener(ColorListener listener);
+	
 	public void addNameListener(NameListener listener);
 	public void removeNameListener(NameListener listener);
 }
@@ -2,10 +2,12 @@ package arduinoLight.channel;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import arduinoLight.framework.Event;
 import arduinoLight.framework.EventDispatchHandler;
 import arduinoLight.util.Color;
+import arduinoLight.util.DebugConsole;
 
 /**
  * Implementation of the Channel interface. <br>
@@ -17,12 +19,17 @@ public class ThreadingChannel implements Channel
 	private final int _id;
 	
 	/** immutable objects + volatile used to ensure visibility of changes across all threads */
+	private volatile int _argb = Color.BLACK.getARGB();
+	/** the latest Color object that was created for or passed as the color, may be older than _argb */
 	private volatile Color _color = Color.BLACK;
 	private volatile String _name = "Channel";
+	/** increased lock-free on every change of the color */
+	private final AtomicLong _colorVersion = new AtomicLong();
 	
 	/** final CopyOnWriteArrayList used for save concurrent access / thread-safety */
 	private final List<ColorListener> _colorListeners = new CopyOnWriteArrayList<>();
 	private final List<NameListener> _nameListeners = new CopyOnWriteArrayList<>();
+	private final List<ColorListener> _synchronousColorListeners = new CopyOnWriteArrayList<>();
 	
 	/** @param id  a unique integer. */
 	public ThreadingChannel(int id)
@@ -34,14 +41,72 @@ public class ThreadingChannel implements Channel
 	@Override
 	public Color getColor()
 	{
-		return _color;
+		return toColor(_argb);
 	}
 
 	@Override
 	public void setColor(Color color)
 	{
+		if (color == null)
+			throw new IllegalArgumentException("color was null.");
+		
 		_color = color;
-		raiseColorChangedEvent(color);
+		changeColor(color.getARGB());
+	}
+	
+	@Override
+	public int getARGB()
+	{
+		return _argb;
+	}
+	
+	@Override
+	public void setARGB(int argb)
+	{
+		changeColor(argb);
+	}
+	
+	/** Sets the color and notifies the listeners. A Color object is only created if there are listeners. */
+	private void changeColor(int argb)
+	{
+		_argb = argb;
+		_colorVersion.incrementAndGet();
+		if (_synchronousColorListeners.isEmpty() && _colorListeners.isEmpty())
+			return;
+		
+		Color color = toColor(argb);
+		for (ColorListener listener : _synchronousColorListeners)
+		{
+			try
+			{
+				listener.colorChanged(this, color);
+			}
+			catch (RuntimeException e) //must neither skip the other listeners nor reach the setter
+			{
+				DebugConsole.print("ThreadingChannel", "changeColor", "Exception in color listener: " + e);
+				e.printStackTrace();
+			}
+		}
+		if (!_colorListeners.isEmpty())
+			raiseColorChangedEvent(color);
+	}
+	
+	/** Returns the cached Color object if it represents the given color, otherwise a new one is created and cached. */
+	private Color toColor(int argb)
+	{
+		Color color = _color;
+		if (color.getARGB() != argb)
+		{
+			color = new Color(argb);
+			_color = color;
+		}
+		return color;
+	}
+	
+	@Override
+	public long getColorVersion()
+	{
+		return _colorVersion.get();
 	}
 	
 	@Override
@@ -67,11 +132,12 @@ public class ThreadingChannel implements Channel
 	/**
 	 * Color needs to get passed in as a parameter, to ensure that the correct color
 	 * is sent to the listeners.
-	 * Events are fired concurrently via the EventDispatchHandler.
+	 * Events are fired concurrently via the EventDispatchHandler. If the listeners are slower than
+	 * the color changes, only the latest color is delivered, older pending colors are dropped.
 	 */
 	private void raiseColorChangedEvent(final Color color)
 	{
-		EventDispatchHandler.getInstance().dispatch(new Event(this, "ColorChanged")
+		EventDispatchHandler.getInstance().dispatchCoalesced(new Event(this, "ColorChanged")
 		{
 			@Override
 			public void notifyListeners()
@@ -107,6 +173,18 @@ public class ThreadingChannel implements Channel
 		_colorListeners.remove(listener);
 	}
 
+	@Override
+	public void addSynchronousColorListener(ColorListener listener)
+	{
+		_synchronousColorListeners.add(listener);
+	}
+
+	@Override
+	public void removeSynchronousColorListener(ColorListener listener)
+	{
+		_synchronousColorListeners.remove(listener);
+	}
+
 	@Override
 	public void addNameListener(NameListener listener)
 	{
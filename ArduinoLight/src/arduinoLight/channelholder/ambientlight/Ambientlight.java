@@ -1,5 +1,9 @@
 package arduinoLight.channelholder.ambientlight;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -7,7 +11,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -17,6 +23,7 @@ import arduinoLight.channelholder.ChannelsChangedEventArgs;
 import arduinoLight.channelholder.ModifiableChannelholder;
 import arduinoLight.framework.Event;
 import arduinoLight.framework.EventDispatchHandler;
+import arduinoLight.framework.FrameScheduler;
 import arduinoLight.framework.ShutdownHandler;
 import arduinoLight.framework.ShutdownListener;
 import arduinoLight.util.DebugConsole;
@@ -34,9 +41,34 @@ public class Ambientlight implements ModifiableChannelholder, ShutdownListener
 	public static final int MAX_REFRESHRATE = 100;
 	private final Map<Channel, Areaselection> _map = new ConcurrentHashMap<Channel, Areaselection>();
 	private ScheduledExecutorService _executor;
+	/** only used if pipelined */
+	private ExecutorService _colorExecutor;
+	/** reused for every frame, so the table is only allocated once */
+	private final IntegralImage _integralImage = new IntegralImage();
 	private final List<ChannelsChangedListener> _channelholderListeners = new CopyOnWriteArrayList<>();
 	private final List<ActiveListener> _activeListeners = new CopyOnWriteArrayList<>();
 	private volatile boolean _active;
+	private volatile boolean _integralImageEnabled = false;
+	private volatile boolean _regionOfInterestEnabled = false;
+	/** the capture regions and what they were calculated for, only accessed by the capturing thread */
+	private List<Rectangle> _regions;
+	private Dimension _regionScreenSize;
+	private Areaselection[] _regionSelections = new Areaselection[0];
+	private long[] _regionVersions = new long[0];
+	private volatile SamplingStrategy _samplingStrategy = SamplingStrategy.FULL;
+	private volatile int _parallelism = 1;
+	private volatile ForkJoinPool _pool;
+	private volatile boolean _pipelined = false;
+	private volatile boolean _adaptiveScheduling = false;
+	private volatile FrameScheduler _scheduler;
+	/** only used if smoothing is enabled */
+	private ScheduledExecutorService _smoothingExecutor;
+	private final Map<Channel, ColorSmoother> _smoothers = new ConcurrentHashMap<>();
+	private volatile boolean _smoothingActive = false;
+	/** the time constant of the smoothing in nanoseconds, 0 means disabled */
+	private volatile long _smoothingTime = 0;
+	private volatile boolean _criticallyDamped = false;
+	private volatile int _smoothingRate = 120;
 
 	
 	
@@ -67,7 +99,12 @@ public class Ambientlight implements ModifiableChannelholder, ShutdownListener
 	@Override
 	public void removeChannel(Channel channel)
 	{
-		Object value = _map.remove(channel);
+		Object value;
+		synchronized (_map) //a smoother must not be created for the channel after it was removed, see setColor
+		{
+			value = _map.remove(channel);
+			_smoothers.remove(channel);
+		}
 		if (value != null)
 			fireChannelsChangedEvent(new ChannelsChangedEventArgs(this, channel, null));
 	}
@@ -97,48 +134,316 @@ public class Ambientlight implements ModifiableChannelholder, ShutdownListener
 		
 		ScreenshotHelper.checkScreenshotPermission();
 		
+		refreshRate = Math.min(refreshRate, MAX_REFRESHRATE);
+		long period = Util.getPeriod(refreshRate);
+		if (_parallelism > 1)
+			_pool = new ForkJoinPool(_parallelism);
+		_executor = Executors.newSingleThreadScheduledExecutor();
+		if (_smoothingTime > 0)
+			startSmoothing();
+		if (_pipelined)
+			startPipelined(period);
+		else
+			startSequential(period);
+		_active = true;
+		DebugConsole.print("Ambientlight", "start", "starting successful");
+		ShutdownHandler.getInstance().addShutdownListener(this);
+		fireActiveChangedEvent(_active);
+	}
+	
+	
+	
+	/**
+	 * Every period, a screenshot is taken and the colors are calculated in the same thread.
+	 */
+	private void startSequential(long period)
+	{
 		Runnable colorSetLoop = new Runnable() //TODO add possiblity to interrupt
 		{
+			/** the last screenshot, its buffer is reused for region of interest captures */
+			private Image _screenshot = null;
+			
 			public void run()
 			{
 				try
 				{
-					Image screenshot = null;
 					try {
 						//TODO somewhere before, check if permission to take screenshot is given
-						screenshot = ScreenshotHelper.getScreenshot();
-					} catch (Exception e) { e.printStackTrace();}
-					AverageColorGetter avgGetter = new AverageColorGetter(screenshot);
-					Iterator<Channel> channels = _map.keySet().iterator();
-					while (channels.hasNext())
+						_screenshot = takeScreenshot(_screenshot);
+					} catch (Exception e) { e.printStackTrace(); throw e; }
+					setColors(_screenshot);
+				}
+				catch (Exception e)
+				{
+					deactivate();
+				}
+			}
+		};
+		schedule(colorSetLoop, period);
+	}
+	
+	
+	
+	/**
+	 * Every period, a screenshot is taken and handed to a second thread that calculates the colors.
+	 * That way, the next screenshot is taken while the colors of the previous one are calculated.
+	 * If the calculation is slower than the capturing, frames are dropped instead of queued.
+	 */
+	private void startPipelined(long period)
+	{
+		final FrameExchanger frames = new FrameExchanger();
+		Runnable captureLoop = new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					frames.publish(takeScreenshot(frames.getWritable()));
+				}
+				catch (Exception e)
+				{
+					e.printStackTrace();
+					deactivate();
+				}
+			}
+		};
+		Runnable colorSetLoop = new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					while (!Thread.currentThread().isInterrupted())
 					{
-						Channel channel;
-						Areaselection selection;
-						synchronized (_map)
-						{
-							channel = channels.next();
-							selection = _map.get(channel);
-						}
-						channel.setColor(avgGetter.getAverageColor(selection));
+						setColors(frames.take());
 					}
 				}
+				catch (InterruptedException e)
+				{
+					//stop() was called, the thread ends.
+				}
 				catch (Exception e)
 				{
-					synchronized (Ambientlight.this)
+					deactivate();
+				}
+			}
+		};
+		_colorExecutor = Executors.newSingleThreadExecutor();
+		_colorExecutor.execute(colorSetLoop);
+		schedule(captureLoop, period);
+	}
+	
+	
+	
+	/**
+	 * Every smoothing period, the outputs of all ColorSmoothers are moved towards their targets and set to the channels.
+	 * This runs independently of the capturing, so the channels change smoothly even if the refresh rate is low.
+	 */
+	private void startSmoothing()
+	{
+		Runnable smoothingLoop = new Runnable()
+		{
+			private long _lastStep = System.nanoTime();
+			
+			public void run()
+			{
+				long now = System.nanoTime();
+				int factor = ColorSmoother.getFactor(now - _lastStep, _smoothingTime);
+				_lastStep = now;
+				for (Map.Entry<Channel, ColorSmoother> entry : _smoothers.entrySet())
+				{
+					Channel channel = entry.getKey();
+					int argb = entry.getValue().step(factor);
+					try
 					{
-						_active = false;
-						fireActiveChangedEvent(_active);
+						if (channel.getARGB() != argb)
+							channel.setARGB(argb);
+					}
+					catch (RuntimeException e) //i.e. from a synchronous listener, it must not end the smoothing
+					{
+						DebugConsole.print("Ambientlight", "smoothing", "Exception while setting a color: " + e);
+						e.printStackTrace();
 					}
 				}
 			}
 		};
-		refreshRate = Math.min(refreshRate, MAX_REFRESHRATE);
-		long period = Util.getPeriod(refreshRate);
-		_executor = Executors.newSingleThreadScheduledExecutor();
-		_executor.scheduleAtFixedRate(colorSetLoop, 0, period, TimeUnit.NANOSECONDS);
-		_active = true;
-		DebugConsole.print("Ambientlight", "start", "starting successful");
-		ShutdownHandler.getInstance().addShutdownListener(this);
+		_smoothers.clear();
+		_smoothingActive = true;
+		_smoothingExecutor = Executors.newSingleThreadScheduledExecutor();
+		_smoothingExecutor.scheduleAtFixedRate(smoothingLoop, 0, Util.getPeriod(_smoothingRate), TimeUnit.NANOSECONDS);
+	}
+	
+	
+	
+	/**
+	 * Schedules the given loop on the executor, either at a fixed rate or,
+	 * if adaptive scheduling is enabled, with a FrameScheduler.
+	 */
+	private void schedule(Runnable loop, long period)
+	{
+		if (_adaptiveScheduling)
+		{
+			_scheduler = new FrameScheduler(_executor, loop, period);
+			_scheduler.start();
+		}
+		else
+		{
+			_scheduler = null;
+			_executor.scheduleAtFixedRate(loop, 0, period, TimeUnit.NANOSECONDS);
+		}
+	}
+	
+	
+	
+	/**
+	 * Takes a screenshot of the whole screen or, if the region of interest is enabled,
+	 * only of the regions that are used by the current selections.
+	 * @param previous  a screenshot that is not used anymore, its buffer is reused if possible. May be null.
+	 */
+	private Image takeScreenshot(Image previous)
+	{
+		if (!_regionOfInterestEnabled)
+			return ScreenshotHelper.getScreenshot();
+		
+		Dimension screenSize = ScreenshotHelper.getScreenSize();
+		if (!screenSize.equals(_regionScreenSize) || isSelectionChanged())
+		{
+			_regions = CaptureRegions.getRegions(_map.values(), screenSize.width, screenSize.height);
+			_regionScreenSize = screenSize;
+		}
+		return ScreenshotHelper.getScreenshot(_regions, previous == null ? null : previous.getData());
+	}
+	
+	
+	
+	/**
+	 * Indicates if a selection was added, removed or changed since the capture regions were calculated.
+	 * Remembers the current selections and their versions for the next call.
+	 */
+	private boolean isSelectionChanged()
+	{
+		boolean changed = false;
+		int i = 0;
+		for (Areaselection selection : _map.values())
+		{
+			if (i == _regionSelections.length)
+			{
+				_regionSelections = Arrays.copyOf(_regionSelections, i + 1);
+				_regionVersions = Arrays.copyOf(_regionVersions, i + 1);
+			}
+			long version = selection.getVersion();
+			if (_regionSelections[i] != selection || _regionVersions[i] != version)
+			{
+				_regionSelections[i] = selection;
+				_regionVersions[i] = version;
+				changed = true;
+			}
+			i++;
+		}
+		if (i != _regionSelections.length)
+		{
+			_regionSelections = Arrays.copyOf(_regionSelections, i);
+			_regionVersions = Arrays.copyOf(_regionVersions, i);
+			changed = true;
+		}
+		return changed;
+	}
+	
+	
+	
+	/**
+	 * Calculates the colors of all channels from the given screenshot and sets them.
+	 * Is only called by one thread at a time.
+	 */
+	private void setColors(Image screenshot)
+	{
+		AverageColorGetter avgGetter;
+		if (_integralImageEnabled)
+		{
+			_integralImage.update(screenshot);
+			avgGetter = new AverageColorGetter(screenshot, _integralImage);
+		}
+		else
+		{
+			avgGetter = new AverageColorGetter(screenshot, _samplingStrategy);
+		}
+		ForkJoinPool pool = _pool;
+		if (pool != null)
+		{
+			setColorsParallel(avgGetter, pool);
+			return;
+		}
+		Iterator<Channel> channels = _map.keySet().iterator();
+		while (channels.hasNext())
+		{
+			Channel channel;
+			Areaselection selection;
+			synchronized (_map)
+			{
+				channel = channels.next();
+				selection = _map.get(channel);
+			}
+			setColor(channel, avgGetter.getAverageARGB(selection));
+		}
+	}
+	
+	
+	
+	/**
+	 * Calculates the colors of all channels in the given pool.
+	 * The colors are set after all calculations are finished.
+	 */
+	private void setColorsParallel(AverageColorGetter avgGetter, ForkJoinPool pool)
+	{
+		List<Map.Entry<Channel, Areaselection>> entries = new ArrayList<>(_map.entrySet());
+		int[] colors = new int[entries.size()];
+		pool.invoke(new ColorCalculationTask(avgGetter, entries, colors));
+		for (int i = 0; i < colors.length; i++)
+		{
+			setColor(entries.get(i).getKey(), colors[i]);
+		}
+	}
+	
+	
+	
+	/**
+	 * Sets the calculated color of the given channel or, if smoothing is active, the target of its ColorSmoother.
+	 * Is only called by one thread at a time.
+	 */
+	private void setColor(Channel channel, int argb)
+	{
+		if (!_smoothingActive)
+		{
+			channel.setARGB(argb);
+			return;
+		}
+		
+		ColorSmoother smoother = _smoothers.get(channel);
+		if (smoother == null)
+		{
+			synchronized (_map)
+			{
+				if (!_map.containsKey(channel))
+					return; //The channel was removed while its color was calculated.
+				smoother = new ColorSmoother(_criticallyDamped);
+				smoother.setTarget(argb); //before it is visible to the smoothing thread, which would start from 0 otherwise
+				_smoothers.put(channel, smoother);
+				return;
+			}
+		}
+		smoother.setTarget(argb);
+	}
+	
+	
+	
+	/** Is called if an exception occurs while refreshing. Stops all threads, like stop(). */
+	private synchronized void deactivate()
+	{
+		if (!_active)
+			return; //already stopped, i.e. by the other thread of the pipeline
+		stopThreads();
+		DebugConsole.print("Ambientlight", "deactivate", "deactivated after an exception");
+		ShutdownHandler.getInstance().removeShutdownListener(this);
 		fireActiveChangedEvent(_active);
 	}
 	
@@ -151,9 +456,10 @@ public class Ambientlight implements ModifiableChannelholder, ShutdownListener
 	{
 		if (!_active)
 			return;
-		_executor.shutdown();
-		_executor = null;
-		_active = false;
+		stopThreads();
+		if (_scheduler != null)
+			DebugConsole.print("Ambientlight", "stop", "frames: " + _scheduler.getFrames()
+					+ ", dropped frames: " + _scheduler.getDroppedFrames());
 		DebugConsole.print("Ambientlight", "stop", "stopping successful");
 		ShutdownHandler.getInstance().removeShutdownListener(this);
 		fireActiveChangedEvent(_active);
@@ -161,10 +467,218 @@ public class Ambientlight implements ModifiableChannelholder, ShutdownListener
 	
 	
 	
+	/** Stops the capturing, the color calculation and the smoothing. Must be called while holding the lock. */
+	private void stopThreads()
+	{
+		if (_scheduler != null)
+			_scheduler.stop(); //a tick that is already scheduled would still run after shutdown
+		_executor.shutdown();
+		_executor = null;
+		if (_colorExecutor != null)
+		{
+			_colorExecutor.shutdownNow(); //interrupts the waiting color thread
+			_colorExecutor = null;
+		}
+		if (_pool != null)
+		{
+			_pool.shutdown();
+			_pool = null;
+		}
+		if (_smoothingExecutor != null)
+		{
+			_smoothingExecutor.shutdown();
+			_smoothingExecutor = null;
+			_smoothingActive = false;
+			_smoothers.clear();
+		}
+		_active = false;
+	}
+	
+	
+	
 	public boolean isActive()
 	{
 		return _active;
 	}
+	
+	
+	
+	/**
+	 * If enabled, a summed-area table of every screenshot is built once per frame and
+	 * the average colors of all selections are calculated from it in constant time per cell.
+	 * This pays off if there are many channels or large overlapping selections.
+	 * Can be changed while active, the change is applied with the next frame.
+	 */
+	public void setIntegralImageEnabled(boolean enabled)
+	{
+		_integralImageEnabled = enabled;
+	}
+	
+	public boolean isIntegralImageEnabled()
+	{
+		return _integralImageEnabled;
+	}
+	
+	
+	
+	/**
+	 * If enabled, only the parts of the screen that are used by the selections are captured
+	 * (see {@link CaptureRegions}), instead of the whole screen.
+	 * This is faster if the selections only use a small part of the screen, i.e. only the border.
+	 * Can be changed while active, the change is applied with the next frame.
+	 */
+	public void setRegionOfInterestEnabled(boolean enabled)
+	{
+		_regionOfInterestEnabled = enabled;
+	}
+	
+	public boolean isRegionOfInterestEnabled()
+	{
+		return _regionOfInterestEnabled;
+	}
+	
+	
+	
+	/**
+	 * Sets which pixels of the selected areas are read to calculate the channel colors.
+	 * Not used if the integral image is enabled, because then the cost does not depend on the amount of pixels.
+	 * Can be changed while active, the change is applied with the next frame.
+	 * @param strategy  the SamplingStrategy, SamplingStrategy.FULL by default.
+	 */
+	public void setSamplingStrategy(SamplingStrategy strategy)
+	{
+		if (strategy == null)
+			throw new IllegalArgumentException("strategy was null.");
+		_samplingStrategy = strategy;
+	}
+	
+	public SamplingStrategy getSamplingStrategy()
+	{
+		return _samplingStrategy;
+	}
+	
+	
+	
+	/**
+	 * Sets the amount of threads that calculate the colors of the channels.
+	 * If greater than 1, the channels are distributed over a ForkJoinPool, which pays off
+	 * if there are many channels. The change is applied on the next start.
+	 * @param parallelism  1 (default) calculates all colors in the refreshing thread.
+	 */
+	public void setParallelism(int parallelism)
+	{
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be at least 1 but was " + parallelism);
+		_parallelism = parallelism;
+	}
+	
+	public int getParallelism()
+	{
+		return _parallelism;
+	}
+	
+	
+	
+	/**
+	 * If enabled, taking the screenshots and calculating the colors are done in two separate threads,
+	 * so capturing the next frame overlaps with calculating the current one. This allows higher refresh rates
+	 * if capturing takes most of the period. The change is applied on the next start.
+	 */
+	public void setPipelined(boolean pipelined)
+	{
+		_pipelined = pipelined;
+	}
+	
+	public boolean isPipelined()
+	{
+		return _pipelined;
+	}
+	
+	
+	
+	/**
+	 * If enabled, a {@link FrameScheduler} is used instead of a fixed rate:
+	 * if a frame takes too long, the missed frames are skipped instead of being calculated back-to-back,
+	 * and the refresh rate is lowered while the frames are permanently too slow.
+	 * The change is applied on the next start.
+	 */
+	public void setAdaptiveScheduling(boolean adaptive)
+	{
+		_adaptiveScheduling = adaptive;
+	}
+	
+	public boolean isAdaptiveScheduling()
+	{
+		return _adaptiveScheduling;
+	}
+	
+	
+	
+	/**
+	 * Sets the time constant of the smoothing. If it is greater than 0, the calculated colors are not set directly,
+	 * but a {@link ColorSmoother} per channel moves the channel colors towards them, at the smoothing rate.
+	 * That way, the refresh rate can be low without visible steps or flicker.
+	 * Enabling or disabling is applied on the next start, other changes are applied immediately.
+	 * @param millis  the time after which about 63% of a change are visible, 0 (default) disables smoothing
+	 */
+	public void setSmoothingTime(long millis)
+	{
+		if (millis < 0)
+			throw new IllegalArgumentException("The smoothing time cannot be negative.");
+		_smoothingTime = TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+	
+	public long getSmoothingTime()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(_smoothingTime);
+	}
+	
+	
+	
+	/**
+	 * If enabled, a critically damped filter is used for smoothing instead of an exponential moving average,
+	 * which makes transitions start softer. The change is applied on the next start.
+	 */
+	public void setCriticallyDamped(boolean criticallyDamped)
+	{
+		_criticallyDamped = criticallyDamped;
+	}
+	
+	public boolean isCriticallyDamped()
+	{
+		return _criticallyDamped;
+	}
+	
+	
+	
+	/**
+	 * Sets how often the smoothed colors are set to the channels, independent of the refresh rate.
+	 * The change is applied on the next start.
+	 * @param smoothingRate  the frequency in Hz, 120 by default
+	 */
+	public void setSmoothingRate(int smoothingRate)
+	{
+		if (smoothingRate < 1)
+			throw new IllegalArgumentException("The smoothing rate must be at least 1 but was " + smoothingRate);
+		_smoothingRate = smoothingRate;
+	}
+	
+	public int getSmoothingRate()
+	{
+		return _smoothingRate;
+	}
+	
+	
+	
+	/**
+	 * Returns the amount of frames that were skipped since the last start, because the previous frame took too long.
+	 * Only counted if adaptive scheduling is enabled, otherwise 0 is returned.
+	 */
+	public long getDroppedFrames()
+	{
+		FrameScheduler scheduler = _scheduler;
+		return scheduler == null ? 0 : scheduler.getDroppedFrames();
+	}
 
 	
 	
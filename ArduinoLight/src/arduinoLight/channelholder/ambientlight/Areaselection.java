@@ -1,5 +1,6 @@
 package arduinoLight.channelholder.ambientlight;
 
+import java.awt.Rectangle;
 
 /**
  * Represents a relative part of a 2D Area (i.e. 'top left quarter' == (r0c0 = true)(r0c1 = false)(... = false)). <br>
@@ -8,6 +9,8 @@ package arduinoLight.channelholder.ambientlight;
 public class Areaselection
 {
 	private boolean[][] _matrix;
+	/** incremented on every change, see {@link #getVersion()} */
+	private long _version = 0;
 	
 	
 	/**
@@ -33,6 +36,7 @@ public class Areaselection
 		validateCoordinates(x, y);
 		
 		_matrix[y][x] = flag;
+		_version++;
 	}
 	
 	/**
@@ -75,12 +79,13 @@ public class Areaselection
 			}
 		}
 		_matrix = newMatrix;
+		_version++;
 	}
 
 	/**
 	 * Sets every cell of the matrix to false.
 	 */
-	public void setAll(boolean flag)
+	public synchronized void setAll(boolean flag)
 	{
 		synchronized (_matrix)
 		{
@@ -92,6 +97,27 @@ public class Areaselection
 				}
 			}
 		}
+		_version++;
+	}
+	
+	/**
+	 * Returns the bounds of the given cell in an absolute area of the given size (i.e. the screen).
+	 * The cells of a row (or column) adjoin each other without gaps or overlap.
+	 * @param x the Column of the cell
+	 * @param y the Row of the cell
+	 */
+	public synchronized Rectangle getCellBounds(int x, int y, int areaWidth, int areaHeight)
+	{
+		validateCoordinates(x, y);
+		
+		double partWidth = (double)areaWidth / getColumns();
+		double partHeight = (double)areaHeight / getRows();
+		int x1 = (int) Math.round(x * partWidth);
+		int y1 = (int) Math.round(y * partHeight);
+		int x2 = (int) Math.round((x + 1) * partWidth) - 1;
+		int y2 = (int) Math.round((y + 1) * partHeight) - 1;
+		
+		return new Rectangle(x1, y1, x2 - x1 + 1, y2 - y1 + 1);
 	}
 	
 	/**
@@ -110,6 +136,15 @@ public class Areaselection
 		return _matrix.length;
 	}
 	
+	/**
+	 * Returns a number that changes whenever a cell or the size is changed.
+	 * That way, results that depend on the selection can be cached.
+	 */
+	public synchronized long getVersion()
+	{
+		return _version;
+	}
+	
 	
 	
 	/** private helper-method that is used to throw events if given arguments are invalid */
@@ -120,4 +155,4 @@ public class Areaselection
 		if (y < 0 || y >= getRows())
 			throw new IllegalArgumentException("y should be between 0 and " + getRows() + " but was " + y);
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
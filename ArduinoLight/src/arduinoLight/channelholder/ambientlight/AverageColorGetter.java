@@ -1,57 +1,103 @@
 package arduinoLight.channelholder.ambientlight;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.Rectangle;
 
 import arduinoLight.util.Color;
 
 /**
  * This class is used to get the average color of a specified part of a given image. 
- * This classes focus is on performance, as its methods are needed very frequently. <br>
+ * This classes focus is on performance, as its methods are needed very frequently.
+ * Either every pixel, a subset of the pixels (see {@link SamplingStrategy}) or an {@link IntegralImage} is used. <br>
  * thread-safety: This class is immutable.
  */
 public class AverageColorGetter
 {
 	private final Image _image;
+	private final IntegralImage _integralImage;
+	private final SamplingStrategy _sampling;
 
 	public AverageColorGetter(Image image)
 	{
+		this(image, SamplingStrategy.FULL);
+	}
+	
+	/**
+	 * Creates an AverageColorGetter that only reads the pixels specified by the given SamplingStrategy.
+	 */
+	public AverageColorGetter(Image image, SamplingStrategy sampling)
+	{
+		if (sampling == null)
+			throw new IllegalArgumentException("sampling was null.");
+		
 		_image = image;
+		_integralImage = null;
+		_sampling = sampling;
+	}
+	
+	/**
+	 * Creates an AverageColorGetter that calculates the average colors from the given IntegralImage,
+	 * which has to be built from the given image. Every area then costs the same, regardless of its size.
+	 * @param integralImage  the IntegralImage of the image, or null to read the pixels directly.
+	 */
+	public AverageColorGetter(Image image, IntegralImage integralImage)
+	{
+		if (integralImage != null
+				&& (integralImage.getWidth() != image.getWidth() || integralImage.getHeight() != image.getHeight()))
+			throw new IllegalArgumentException("The IntegralImage does not match the dimensions of the image.");
+		
+		_image = image;
+		_integralImage = integralImage;
+		_sampling = SamplingStrategy.FULL;
 	}
 	
 	/** Returns the average color of the image in the area that is specified by the given selection. */
 	public Color getAverageColor(Areaselection selection) //TODO write a testclass for this
 	{
-		List<Color> averageColorsForCells = getAverageColors(selection);
-		return Color.getAverageColor(averageColorsForCells);
+		return new Color(getAverageARGB(selection));
 	}
 	
-	/** Returns a List of the average colors for each cell of the selection */
-	private List<Color> getAverageColors(Areaselection selection)
+	/**
+	 * Returns the average color of the image in the area that is specified by the given selection as an ARGB-int.
+	 * The average of the average colors of all selected cells is returned, black if no cell is selected.
+	 */
+	public int getAverageARGB(Areaselection selection)
 	{
 		if (selection == null)
-			return new ArrayList<Color>();
+			return Color.BLACK.getARGB();
 		
-		List<Color> averageColors = new ArrayList<>(selection.getColumns() * selection.getRows());
-		double partWidth = (double)_image.getWidth() / selection.getColumns();
-		double partHeight = (double)_image.getHeight() / selection.getRows();
+		long aSum = 0;
+		long rSum = 0;
+		long gSum = 0;
+		long bSum = 0;
+		int cells = 0;
 		for (int y = 0; y < selection.getRows(); y++)
 		{
 			for (int x = 0; x < selection.getColumns(); x++)
 			{
 				if (selection.getCell(x, y))
 				{
-					int imgX1 = (int) Math.round(x * partWidth);
-					int imgY1 = (int) Math.round(y * partHeight);
-					int imgX2 = (int) Math.round((x + 1) * partWidth) - 1;
-					int imgY2 = (int) Math.round((y + 1) * partHeight - 1);
+					Rectangle cell = selection.getCellBounds(x, y, _image.getWidth(), _image.getHeight());
+					int imgX2 = cell.x + cell.width - 1;
+					int imgY2 = cell.y + cell.height - 1;
 					
-					averageColors.add(getAverageColor(imgX1, imgY1, imgX2, imgY2));
+					int argb = getAverageARGB(cell.x, cell.y, imgX2, imgY2);
+					aSum += argb >>> 24;
+					rSum += (argb >>> 16) & 0xff;
+					gSum += (argb >>> 8) & 0xff;
+					bSum += argb & 0xff;
+					cells++;
 				}
 			}
 		}
 		
-		return averageColors;
+		if (cells == 0)
+			return Color.BLACK.getARGB();
+		
+		int a = (int) Math.round((double) aSum / cells);
+		int r = (int) Math.round((double) rSum / cells);
+		int g = (int) Math.round((double) gSum / cells);
+		int b = (int) Math.round((double) bSum / cells);
+		return Color.getARGB(a, r, g, b);
 	}
 	
 	/**
@@ -59,7 +105,7 @@ public class AverageColorGetter
 	 * the rectangle that is specified by the given points (x1|y1), (x2|y2).
 	 * The given points are included in the rectangle.
 	 */
-	private Color getAverageColor(int x1, int y1, int x2, int y2)
+	private int getAverageARGB(int x1, int y1, int x2, int y2)
 	{
 		_image.validateCoordinates(x1, y1);
 		_image.validateCoordinates(x2, y2);
@@ -77,22 +123,30 @@ public class AverageColorGetter
 			y1 = temp;
 		}
 		
+		if (_integralImage != null)
+			return _integralImage.getAverageARGB(x1, y1, x2, y2);
+		
 		long aSum = 0;
 		long rSum = 0;
 		long gSum = 0;
 		long bSum = 0;
 		long colors = 0;
 		
-		Color color;
-		for (int y = y1; y <= y2; y++)
+		final int[] pixels = _image.getData();
+		final int stride = _image.getStride();
+		final int step = _sampling.getStride(x2 - x1 + 1, y2 - y1 + 1);
+		int argb;
+		for (int y = y1 + _sampling.getStart(step, y2 - y1 + 1); y <= y2; y += step)
 		{
-			for (int x = x1; x <= x2; x++)
+			int rowStart = _image.getOffset() + y * stride;
+			int first = rowStart + x1 + _sampling.getStart(step, x2 - x1 + 1);
+			for (int i = first; i <= rowStart + x2; i += step)
 			{
-				color = _image.getPixel(x, y);
-				aSum += color.getA();
-				rSum += color.getR();
-				gSum += color.getG();
-				bSum += color.getB();
+				argb = pixels[i];
+				aSum += argb >>> 24;
+				rSum += (argb >>> 16) & 0xff;
+				gSum += (argb >>> 8) & 0xff;
+				bSum += argb & 0xff;
 				colors++;
 			}
 		}
@@ -102,7 +156,7 @@ public class AverageColorGetter
 		int gAvg = (int)(((double)gSum) / colors);
 		int bAvg = (int)(((double)bSum) / colors);
 		
-		return new Color(aAvg, rAvg, gAvg, bAvg);
+		return Color.getARGB(aAvg, rAvg, gAvg, bAvg);
 	}
 
 }
@@ -0,0 +1,122 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Calculates which parts of the screen have to be captured to serve a set of Areaselections.
+ * The selected cells are merged into a few rectangles, so a layout that only uses the border of the screen
+ * is captured as a few strips instead of the whole screen. <br>
+ * thread-safety: This class is stateless, therefore thread-safe.
+ */
+public class CaptureRegions
+{
+	/** Every region is a separate capture, so the amount of regions is limited. */
+	public static final int MAX_REGIONS = 8;
+	
+	
+	
+	/**
+	 * Returns a list of rectangles which together contain every selected cell of the given selections,
+	 * in an area of the given size. Every selected cell is completely contained in at least one of the rectangles.
+	 * If no cell is selected, the list is empty.
+	 */
+	public static List<Rectangle> getRegions(Collection<Areaselection> selections, int areaWidth, int areaHeight)
+	{
+		List<Rectangle> regions = new ArrayList<>();
+		for (Areaselection selection : selections)
+		{
+			for (int y = 0; y < selection.getRows(); y++)
+			{
+				for (int x = 0; x < selection.getColumns(); x++)
+				{
+					if (selection.getCell(x, y))
+						regions.add(selection.getCellBounds(x, y, areaWidth, areaHeight));
+				}
+			}
+		}
+		
+		mergeWithoutWaste(regions);
+		mergeUntil(regions, MAX_REGIONS);
+		return regions;
+	}
+	
+	
+	
+	/**
+	 * Merges rectangles as long as there are two rectangles whose bounding box is not bigger
+	 * than the two rectangles together, i.e. adjoining cells of a row or overlapping cells.
+	 */
+	private static void mergeWithoutWaste(List<Rectangle> regions)
+	{
+		boolean merged = true;
+		while (merged)
+		{
+			merged = false;
+			for (int i = 0; i < regions.size() && !merged; i++)
+			{
+				for (int j = i + 1; j < regions.size() && !merged; j++)
+				{
+					if (getWaste(regions.get(i), regions.get(j)) <= 0)
+					{
+						merge(regions, i, j);
+						merged = true;
+					}
+				}
+			}
+		}
+	}
+	
+	
+	
+	/** Merges the two rectangles with the least waste until there are no more than maxRegions rectangles. */
+	private static void mergeUntil(List<Rectangle> regions, int maxRegions)
+	{
+		while (regions.size() > maxRegions)
+		{
+			int bestI = 0;
+			int bestJ = 1;
+			long bestWaste = Long.MAX_VALUE;
+			for (int i = 0; i < regions.size(); i++)
+			{
+				for (int j = i + 1; j < regions.size(); j++)
+				{
+					long waste = getWaste(regions.get(i), regions.get(j));
+					if (waste < bestWaste)
+					{
+						bestWaste = waste;
+						bestI = i;
+						bestJ = j;
+					}
+				}
+			}
+			merge(regions, bestI, bestJ);
+		}
+	}
+	
+	
+	
+	/** Replaces the rectangles at i and j (i < j) by their bounding box. */
+	private static void merge(List<Rectangle> regions, int i, int j)
+	{
+		Rectangle union = regions.get(i).union(regions.get(j));
+		regions.remove(j);
+		regions.set(i, union);
+	}
+	
+	
+	
+	/** Returns the amount of pixels that would be captured additionally if the two rectangles were merged. */
+	private static long getWaste(Rectangle r1, Rectangle r2)
+	{
+		Rectangle union = r1.union(r2);
+		return getArea(union) - getArea(r1) - getArea(r2);
+	}
+	
+	private static long getArea(Rectangle r)
+	{
+		return (long) r.width * r.height;
+	}
+}
@@ -0,0 +1,66 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+import arduinoLight.channel.Channel;
+
+/**
+ * Calculates the average colors of a list of selections in a ForkJoinPool.
+ * The list is split in halves until every task only calculates one color.
+ * The channels are not changed by this task, the results are written into an array,
+ * so the caller can set all colors after the calculation is joined. <br>
+ * thread-safety: Every task only writes its own part of the result array.
+ * The AverageColorGetter is immutable.
+ */
+class ColorCalculationTask extends RecursiveAction
+{
+	private static final long serialVersionUID = 1L;
+	
+	private final AverageColorGetter _avgGetter;
+	private final List<Map.Entry<Channel, Areaselection>> _entries;
+	private final int[] _results;
+	private final int _from;
+	private final int _to;
+	
+	
+	
+	/**
+	 * @param entries  the selections of which the average colors are calculated
+	 * @param results  the array to which the ARGB-color of entries.get(i) is written at index i
+	 */
+	public ColorCalculationTask(AverageColorGetter avgGetter, List<Map.Entry<Channel, Areaselection>> entries, int[] results)
+	{
+		this(avgGetter, entries, results, 0, entries.size());
+	}
+	
+	
+	
+	private ColorCalculationTask(AverageColorGetter avgGetter, List<Map.Entry<Channel, Areaselection>> entries,
+			int[] results, int from, int to)
+	{
+		_avgGetter = avgGetter;
+		_entries = entries;
+		_results = results;
+		_from = from;
+		_to = to;
+	}
+	
+	
+	
+	@Override
+	protected void compute()
+	{
+		if (_to - _from <= 1)
+		{
+			for (int i = _from; i < _to; i++)
+				_results[i] = _avgGetter.getAverageARGB(_entries.get(i).getValue());
+			return;
+		}
+		
+		int middle = (_from + _to) >>> 1;
+		invokeAll(new ColorCalculationTask(_avgGetter, _entries, _results, _from, middle),
+				  new ColorCalculationTask(_avgGetter, _entries, _results, middle, _to));
+	}
+}
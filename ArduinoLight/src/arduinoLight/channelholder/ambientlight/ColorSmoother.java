@@ -0,0 +1,112 @@
+package arduinoLight.channelholder.ambientlight;
+
+/**
+ * A low-pass filter for the color of one channel, which moves its output towards the latest target color over time.
+ * Without smoothing, every small change of the screen is visible as flicker on the LEDs. <br>
+ * The filter is either a single exponential moving average, or two of them in series, which is a critically damped
+ * filter: transitions start softer and do not overshoot. The components are filtered in 16.16 fixed-point
+ * arithmetic; the weight of the target is calculated once per step for all channels with {@link #getFactor(long, long)},
+ * so the smoothing depends on the elapsed time and not on the capture or output rate. <br>
+ * thread-safety: The target may be set by any thread, {@link #step(int)} must only be called by one thread at a time.
+ */
+public class ColorSmoother
+{
+	private static final int SHIFT = 16;
+	/** 1.0 in fixed-point */
+	public static final int ONE = 1 << SHIFT;
+	
+	private final int _stages;
+	/** the fixed-point components of every stage, [stage * 4 + component] with the components a, r, g, b */
+	private final int[] _state;
+	private volatile int _target;
+	private boolean _initialized = false;
+	private int _output;
+	
+	
+	
+	/**
+	 * @param criticallyDamped  true to use two filter stages, false for a single exponential moving average
+	 */
+	public ColorSmoother(boolean criticallyDamped)
+	{
+		_stages = criticallyDamped ? 2 : 1;
+		_state = new int[_stages * 4];
+	}
+	
+	
+	
+	/** Sets the ARGB-color towards which the output moves. */
+	public void setTarget(int argb)
+	{
+		_target = argb;
+	}
+	
+	public int getTarget()
+	{
+		return _target;
+	}
+	
+	/** Returns the ARGB-color that was returned by the last step. */
+	public int getOutput()
+	{
+		return _output;
+	}
+	
+	
+	
+	/**
+	 * Moves the output towards the target and returns it as an ARGB-color.
+	 * The first step after creation returns the target without smoothing.
+	 * @param factor  the weight of the target in fixed-point, between 0 and ONE, see {@link #getFactor(long, long)}
+	 */
+	public int step(int factor)
+	{
+		int target = _target;
+		if (!_initialized)
+		{
+			for (int i = 0; i < _state.length; i++)
+				_state[i] = getComponent(target, i & 3) << SHIFT;
+			_initialized = true;
+		}
+		
+		int output = 0;
+		for (int component = 0; component < 4; component++)
+		{
+			int input = getComponent(target, component) << SHIFT;
+			for (int stage = 0; stage < _stages; stage++)
+			{
+				int index = stage * 4 + component;
+				_state[index] += (int) (((long) (input - _state[index]) * factor) >> SHIFT);
+				input = _state[index];
+			}
+			int value = (input + (ONE >> 1)) >> SHIFT;
+			output |= value << (24 - component * 8);
+		}
+		_output = output;
+		return output;
+	}
+	
+	
+	
+	/**
+	 * Returns the weight of the target for a step after the given elapsed time, in fixed-point.
+	 * After one time constant, a single stage has moved about 63% of the way to the target.
+	 * @param timeConstant  the time constant in nanoseconds, 0 means no smoothing
+	 */
+	public static int getFactor(long elapsed, long timeConstant)
+	{
+		if (timeConstant <= 0)
+			return ONE;
+		if (elapsed <= 0)
+			return 0;
+		return (int) Math.round(ONE * (1 - Math.exp((double) -elapsed / timeConstant)));
+	}
+	
+	
+	
+	/** Returns the component (0 = a, 1 = r, 2 = g, 3 = b) of the given ARGB-color. */
+	private static int getComponent(int argb, int component)
+	{
+		return (argb >>> (24 - component * 8)) & 0xff;
+	}
+}
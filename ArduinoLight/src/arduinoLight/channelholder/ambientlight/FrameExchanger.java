@@ -0,0 +1,73 @@
+package arduinoLight.channelholder.ambientlight;
+
+/**
+ * Hands screenshots from a capturing thread to a calculating thread (triple buffering).
+ * There are three slots: the one the producer writes to, the one that is ready to be taken and
+ * the one the consumer currently reads. The producer never waits; if the consumer is too slow,
+ * the ready frame is replaced by the newer one, so the consumer always gets the latest frame. <br>
+ * The images of the slots are passed around instead of being copied, so a producer can reuse the
+ * buffer of {@link #getWritable()} for the next frame without allocating a new one. <br>
+ * thread-safety: yes, for one producer and one consumer. Methods are synchronized.
+ */
+class FrameExchanger
+{
+	private Image _write = null;
+	private Image _ready = null;
+	private Image _read = null;
+	private boolean _fresh = false;
+	private long _dropped = 0;
+	
+	
+	
+	/**
+	 * Returns an image that is neither ready nor read at the moment, so its buffer can be
+	 * overwritten by the producer. Returns null if there is no such image yet.
+	 */
+	public synchronized Image getWritable()
+	{
+		return _write;
+	}
+	
+	
+	
+	/**
+	 * Makes the given frame the ready frame. If the previous ready frame was not taken yet, it is dropped.
+	 * Does not block.
+	 */
+	public synchronized void publish(Image frame)
+	{
+		if (_fresh)
+			_dropped++;
+		
+		_write = _ready;
+		_ready = frame;
+		_fresh = true;
+		notifyAll();
+	}
+	
+	
+	
+	/**
+	 * Waits until a frame is published which was not taken yet, and returns it.
+	 * The returned image is not overwritten until the next call of this method.
+	 */
+	public synchronized Image take() throws InterruptedException
+	{
+		while (!_fresh)
+			wait();
+		
+		Image taken = _ready;
+		_ready = _read;
+		_read = taken;
+		_fresh = false;
+		return taken;
+	}
+	
+	
+	
+	/** Returns the amount of frames that were replaced before they were taken. */
+	public synchronized long getDroppedFrames()
+	{
+		return _dropped;
+	}
+}
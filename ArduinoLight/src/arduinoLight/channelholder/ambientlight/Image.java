@@ -1,14 +1,23 @@
 package arduinoLight.channelholder.ambientlight;
 
+import java.util.Arrays;
+
 import arduinoLight.util.Color;
 
 /**
- * This class encapsulates a two dimensional array which represents an image. <br>
- * thread-safety: This class is not thread-safe. 
+ * This class encapsulates a packed int-array which represents an image.
+ * Every pixel is stored as an ARGB-int (see {@link Color#getARGB()}), rows are stored one after another.
+ * The distance between the beginning of two rows is the stride, which may be greater than the width.
+ * That way, an Image can also represent a section of a bigger array without copying it. <br>
+ * thread-safety: This class is not thread-safe.
  */
 public class Image
 {
-	private final Color[][] _pixels;
+	private final int[] _pixels;
+	private final int _offset;
+	private final int _stride;
+	private final int _width;
+	private final int _height;
 	
 	/**
 	 * Creates a new Image with a copy of the given Colors
@@ -17,23 +26,15 @@ public class Image
 	 */
 	public Image(Color[][] pixels)
 	{
-		int width = pixels[0].length;
-		int height = pixels.length;
-		
-		if (width <= 0 || height <= 0)
-			throw new IllegalArgumentException();
-
+		this(pixels[0].length, pixels.length);
 		
-		_pixels = new Color[height][width];
-		
-		for (int y = 0; y < height; y++)
+		for (int y = 0; y < _height; y++)
 		{
-			for (int x = 0; x < width; x++)
+			for (int x = 0; x < _width; x++)
 			{
 				Color pixel = pixels[y][x];
-				if (pixel == null)
-					pixel = Color.BLACK;
-				setPixel(x, y, pixel);
+				if (pixel != null)
+					setARGB(x, y, pixel.getARGB());
 			}
 		}
 	}
@@ -52,37 +53,148 @@ public class Image
 		if (color == null)
 			throw new IllegalArgumentException();
 		
-		_pixels = new Color[height][width];
+		_pixels = new int[width * height];
+		_offset = 0;
+		_stride = width;
+		_width = width;
+		_height = height;
+		
+		Arrays.fill(_pixels, color.getARGB());
+	}
+	
+	/**
+	 * Creates a new Image that is backed by the given array. The array is not copied,
+	 * changes to the array are visible in the Image and vice versa.
+	 * @param pixels  ARGB-ints, row-major without gaps (pixels.length >= width * height)
+	 */
+	public Image(int[] pixels, int width, int height)
+	{
+		this(pixels, 0, width, height, width);
+	}
+	
+	/**
+	 * Creates a new Image that is backed by the given array. The array is not copied.
+	 * The pixel (x|y) is found at pixels[offset + y * stride + x].
+	 * @param pixels  ARGB-ints, row-major
+	 * @param offset  index of the top left pixel
+	 * @param stride  distance between the beginning of two rows, stride >= width
+	 */
+	public Image(int[] pixels, int offset, int width, int height, int stride)
+	{
+		if (pixels == null)
+			throw new IllegalArgumentException("pixels was null.");
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("width and height must be greater than 0.");
+		if (offset < 0 || stride < width)
+			throw new IllegalArgumentException("offset must be >= 0 and stride >= width.");
+		if ((long) offset + (long) (height - 1) * stride + width > pixels.length)
+			throw new IllegalArgumentException("The given array is too small for the given dimensions.");
 		
-		for (int y = 0; y < height; y++)
+		_pixels = pixels;
+		_offset = offset;
+		_stride = stride;
+		_width = width;
+		_height = height;
+	}
+	
+	public void setPixel(int x, int y, Color color)
+	{
+		setARGB(x, y, color.getARGB());
+	}
+	
+	/** Returns the pixel as a Color object. Use {@link #getARGB(int, int)} in performance-critical code. */
+	public Color getPixel(int x, int y)
+	{
+		return new Color(getARGB(x, y));
+	}
+	
+	public void setARGB(int x, int y, int argb)
+	{
+		validateCoordinates(x, y);
+		_pixels[getIndex(x, y)] = argb;
+	}
+	
+	public int getARGB(int x, int y)
+	{
+		validateCoordinates(x, y);
+		return _pixels[getIndex(x, y)];
+	}
+	
+	/**
+	 * Copies the pixels of the rectangle (x|y) with the given width and height into dest.
+	 * The rows are written to dest one after another, starting at destOffset, each 'width' ints long.
+	 * @return  dest
+	 */
+	public int[] getARGBs(int x, int y, int width, int height, int[] dest, int destOffset)
+	{
+		validateCoordinates(x, y);
+		validateCoordinates(x + width - 1, y + height - 1);
+		
+		for (int row = 0; row < height; row++)
 		{
-			for (int x = 0; x < width; x++)
-			{
-				setPixel(x, y, color);
-			}
+			System.arraycopy(_pixels, getIndex(x, y + row), dest, destOffset + row * width, width);
 		}
+		return dest;
 	}
 	
-	public void setPixel(int x, int y, Color color)
+	/**
+	 * Copies the given ARGB-ints into the rectangle (x|y) with the given width and height.
+	 * The rows are read from src one after another, starting at srcOffset, each 'width' ints long.
+	 */
+	public void setARGBs(int x, int y, int width, int height, int[] src, int srcOffset)
 	{
 		validateCoordinates(x, y);
-		_pixels[y][x] = color;
+		validateCoordinates(x + width - 1, y + height - 1);
+		
+		for (int row = 0; row < height; row++)
+		{
+			System.arraycopy(src, srcOffset + row * width, _pixels, getIndex(x, y + row), width);
+		}
 	}
 	
-	public Color getPixel(int x, int y)
+	/**
+	 * Copies the whole given image into this image, so that its top left pixel is placed at (x|y).
+	 */
+	public void setARGBs(int x, int y, Image source)
 	{
 		validateCoordinates(x, y);
-		return _pixels[y][x];
+		validateCoordinates(x + source.getWidth() - 1, y + source.getHeight() - 1);
+		
+		for (int row = 0; row < source.getHeight(); row++)
+		{
+			System.arraycopy(source._pixels, source.getIndex(0, row), _pixels, getIndex(x, y + row), source.getWidth());
+		}
+	}
+	
+	/**
+	 * Returns the backing array. It is not copied, see {@link #getOffset()} and {@link #getStride()}
+	 * for the layout of the pixels in the array.
+	 */
+	public int[] getData()
+	{
+		return _pixels;
+	}
+	
+	/** Returns the index of the top left pixel in the backing array. */
+	public int getOffset()
+	{
+		return _offset;
+	}
+	
+	/** Returns the distance between the beginning of two rows in the backing array. */
+	public int getStride()
+	{
+		return _stride;
 	}
 	
 	public int getWidth()
 	{
-		return _pixels[0].length;
+		return _width;
 	}
 	
 	public int getHeight()
 	{
-		return _pixels.length;
+		return _height;
 	}
 	
 	/** Throws IllegalArgumentException if the given coordinates are out of bounds. */
@@ -93,4 +205,10 @@ public class Image
 		if (y < 0 || y >= getHeight())
 			throw new IllegalArgumentException("y=" + y + " but must be between 0 and " + getHeight());
 	}
+	
+	/** Returns the index of the pixel (x|y) in the backing array. Does not validate the coordinates. */
+	private int getIndex(int x, int y)
+	{
+		return _offset + y * _stride + x;
+	}
 }
@@ -0,0 +1,140 @@
+package arduinoLight.channelholder.ambientlight;
+
+/**
+ * A summed-area table of an Image. Once it is built for an image, the average color of any
+ * rectangle of that image can be calculated in constant time, independent of the size of the rectangle.
+ * This pays off if many (or overlapping) areas of the same image are needed, as the image only has to be read once. <br>
+ * The sums of the four color components are stored interleaved in a single int-array.
+ * The int-sums are allowed to overflow, because the sum of a rectangle is calculated with modular arithmetic
+ * and then interpreted as unsigned. That is correct as long as a rectangle does not have more than
+ * MAX_PIXELS pixels. <br>
+ * The table is reused if {@link #update(Image)} is called again with an image of the same size,
+ * so no array is allocated per frame. <br>
+ * thread-safety: This class is not thread-safe. 
+ */
+public class IntegralImage
+{
+	/** The maximum amount of pixels for which a sum of 8-bit values still fits into 32 unsigned bits. */
+	public static final int MAX_PIXELS = (int) (0xffffffffL / 255);
+	
+	private int[] _sums;
+	private int _width;
+	private int _height;
+	
+	
+	
+	/** Creates an empty IntegralImage, {@link #update(Image)} has to be called before it can be used. */
+	public IntegralImage()
+	{
+	}
+	
+	
+	
+	/** Creates the IntegralImage of the given image. */
+	public IntegralImage(Image image)
+	{
+		update(image);
+	}
+	
+	
+	
+	/**
+	 * Recalculates the table for the given image.
+	 * @throws IllegalArgumentException  if the image has more than MAX_PIXELS pixels.
+	 */
+	public void update(Image image)
+	{
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		if ((long) width * height > MAX_PIXELS)
+			throw new IllegalArgumentException("The image is too big for an IntegralImage: " + width + "x" + height);
+		
+		if (_sums == null || width != _width || height != _height)
+		{
+			//Row 0 and column 0 stay 0, they are never written.
+			_sums = new int[4 * (width + 1) * (height + 1)];
+			_width = width;
+			_height = height;
+		}
+		
+		final int[] pixels = image.getData();
+		final int[] sums = _sums;
+		final int rowLength = 4 * (width + 1);
+		for (int y = 0; y < height; y++)
+		{
+			int pixel = image.getOffset() + y * image.getStride();
+			int index = (y + 1) * rowLength + 4;
+			int aRow = 0;
+			int rRow = 0;
+			int gRow = 0;
+			int bRow = 0;
+			for (int x = 0; x < width; x++)
+			{
+				int argb = pixels[pixel++];
+				aRow += argb >>> 24;
+				rRow += (argb >>> 16) & 0xff;
+				gRow += (argb >>> 8) & 0xff;
+				bRow += argb & 0xff;
+				sums[index]     = sums[index - rowLength]     + aRow;
+				sums[index + 1] = sums[index - rowLength + 1] + rRow;
+				sums[index + 2] = sums[index - rowLength + 2] + gRow;
+				sums[index + 3] = sums[index - rowLength + 3] + bRow;
+				index += 4;
+			}
+		}
+	}
+	
+	
+	
+	/**
+	 * Returns the average color as an ARGB-int of the rectangle that is specified by
+	 * the given points (x1|y1), (x2|y2). The given points are included in the rectangle.
+	 * x1 <= x2 and y1 <= y2 is expected. The components are truncated, not rounded.
+	 */
+	public int getAverageARGB(int x1, int y1, int x2, int y2)
+	{
+		validateCoordinates(x1, y1);
+		validateCoordinates(x2, y2);
+		
+		final int rowLength = 4 * (_width + 1);
+		final int topLeft = y1 * rowLength + 4 * x1;
+		final int topRight = y1 * rowLength + 4 * (x2 + 1);
+		final int bottomLeft = (y2 + 1) * rowLength + 4 * x1;
+		final int bottomRight = (y2 + 1) * rowLength + 4 * (x2 + 1);
+		final long pixels = (long) (x2 - x1 + 1) * (y2 - y1 + 1);
+		
+		int argb = 0;
+		for (int c = 0; c < 4; c++)
+		{
+			int sum = _sums[bottomRight + c] - _sums[topRight + c] - _sums[bottomLeft + c] + _sums[topLeft + c];
+			int avg = (int) (Integer.toUnsignedLong(sum) / pixels);
+			argb = (argb << 8) | avg;
+		}
+		return argb;
+	}
+	
+	
+	
+	public int getWidth()
+	{
+		return _width;
+	}
+	
+	public int getHeight()
+	{
+		return _height;
+	}
+	
+	
+	
+	/** Throws IllegalArgumentException if the given coordinates are out of bounds. */
+	private void validateCoordinates(int x, int y)
+	{
+		if (_sums == null)
+			throw new IllegalStateException("update() was not called yet.");
+		if (x < 0 || x >= _width)
+			throw new IllegalArgumentException("x=" + x + " but must be between 0 and " + _width);
+		if (y < 0 || y >= _height)
+			throw new IllegalArgumentException("y=" + y + " but must be between 0 and " + _height);
+	}
+}
@@ -0,0 +1,106 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Specifies which pixels of an area are read to calculate its average color.
+ * For ambientlight, reading every 4th or 8th pixel in both directions is visually identical to reading every pixel,
+ * but much faster. <br>
+ * The pixels are sampled in a grid with a fixed distance (the stride) between two samples.
+ * If the strategy is jittered, the grid is shifted randomly for every row and frame, which avoids
+ * that thin lines or regular patterns on the screen are always (or never) hit. <br>
+ * thread-safety: This class is immutable.
+ */
+public class SamplingStrategy
+{
+	/** Every pixel is read. */
+	public static final SamplingStrategy FULL = new SamplingStrategy(1, 0, false);
+	
+	private final int _stride;
+	private final int _maxSamples;
+	private final boolean _jittered;
+	
+	
+	
+	private SamplingStrategy(int stride, int maxSamples, boolean jittered)
+	{
+		_stride = stride;
+		_maxSamples = maxSamples;
+		_jittered = jittered;
+	}
+	
+	
+	
+	/** Every stride-th pixel of every stride-th row is read. */
+	public static SamplingStrategy stride(int stride)
+	{
+		validatePositive(stride);
+		return new SamplingStrategy(stride, 0, false);
+	}
+	
+	
+	
+	/** Like {@link #stride(int)}, but the sampled pixels are shifted randomly for every row. */
+	public static SamplingStrategy jittered(int stride)
+	{
+		validatePositive(stride);
+		return new SamplingStrategy(stride, 0, true);
+	}
+	
+	
+	
+	/**
+	 * The stride is chosen per area, so that about maxSamples pixels are read.
+	 * Areas with less pixels are read completely.
+	 */
+	public static SamplingStrategy maxSamples(int maxSamples, boolean jittered)
+	{
+		validatePositive(maxSamples);
+		return new SamplingStrategy(0, maxSamples, jittered);
+	}
+	
+	
+	
+	/** Returns the distance between two samples for an area of the given size. */
+	public int getStride(int width, int height)
+	{
+		if (_maxSamples == 0)
+			return _stride;
+		
+		long pixels = (long) width * height;
+		if (pixels <= _maxSamples)
+			return 1;
+		return (int) Math.ceil(Math.sqrt((double) pixels / _maxSamples));
+	}
+	
+	
+	
+	/**
+	 * Returns the position of the first sample of a row (or column) with the given length and stride,
+	 * relative to the beginning of the row. There is always at least one sample per row.
+	 */
+	public int getStart(int stride, int length)
+	{
+		if (!_jittered || stride == 1)
+			return 0;
+		return ThreadLocalRandom.current().nextInt(Math.min(stride, length));
+	}
+	
+	
+	
+	private static void validatePositive(int value)
+	{
+		if (value < 1)
+			throw new IllegalArgumentException("Value must be greater than 0 but was " + value);
+	}
+	
+	//----------------------------------------------------------
+	@Override
+	public String toString()
+	{
+		String jittered = _jittered ? ", jittered" : "";
+		if (_maxSamples == 0)
+			return "SamplingStrategy[stride " + _stride + jittered + "]";
+		return "SamplingStrategy[max " + _maxSamples + " samples" + jittered + "]";
+	}
+}
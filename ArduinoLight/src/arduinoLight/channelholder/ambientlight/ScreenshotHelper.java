@@ -1,21 +1,29 @@
 package arduinoLight.channelholder.ambientlight;
 
+import java.awt.AWTException;
 import java.awt.AWTPermission;
+import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.Robot;
 import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.List;
 
-import arduinoLight.util.Color;
 import arduinoLight.util.DebugConsole;
 
 /**
  * This class encapsulates the functionality to take a screenshot. <br> 
- * thread-safety: This class has not state, is immutable and therefore thread-safe.
+ * thread-safety: The only state is a lazily created Robot, which is created synchronized. Robot is thread-safe.
  */
 public class ScreenshotHelper
 {
+	/** Creating a Robot is expensive, therefore it is reused for every screenshot. */
+	private static Robot _robot = null;
+	
+	
+	
 	/**
 	 * Checks if it is permitted to take a screenshot.
 	 * @throws SecurityException  if it is not permitted to take a screenshot.
@@ -30,27 +38,114 @@ public class ScreenshotHelper
 	
 	
 	/**
-	 * Returns a screenshot of the Users main screen
+	 * Returns a screenshot of the Users main screen.
+	 * The returned Image is directly backed by the raster of the captured BufferedImage, no pixels are copied.
 	 */
 	public static Image getScreenshot()
 	{
 		BufferedImage bufferedImage = getBufferedImageScreenshot();
-		Color[][] imageArray = getArrayFromImage(bufferedImage); 
-		Image image = new Image(imageArray);
+		return wrapImage(bufferedImage);
+	}
+	
+	
+	
+	/**
+	 * Returns a screenshot of the Users main screen, copied into the given buffer.
+	 * This can be used to keep a frame while the next one is captured, without allocating a new array per frame.
+	 * @param buffer  the array that backs the returned Image. If it is null or too small, a new array is allocated.
+	 * Use {@link Image#getData()} of the returned Image to reuse the buffer for the next call.
+	 */
+	public static Image getScreenshot(int[] buffer)
+	{
+		BufferedImage bufferedImage = getBufferedImageScreenshot();
+		int width = bufferedImage.getWidth();
+		int height = bufferedImage.getHeight();
+		if (buffer == null || buffer.length < width * height)
+			buffer = new int[width * height];
+		
+		wrapImage(bufferedImage).getARGBs(0, 0, width, height, buffer, 0);
+		return new Image(buffer, width, height);
+	}
+	
+	
+	
+	/**
+	 * Returns a screenshot of the Users main screen, of which only the given regions are captured.
+	 * The regions are copied into the given buffer, the rest of the buffer is left as it is
+	 * and should therefore not be read (see {@link CaptureRegions}).
+	 * @param regions  the parts of the screen that should be captured
+	 * @param buffer  the array that backs the returned Image. If it is null or too small, a new array is allocated.
+	 * Use {@link Image#getData()} of the returned Image to reuse the buffer for the next call.
+	 */
+	public static Image getScreenshot(List<Rectangle> regions, int[] buffer)
+	{
+		Dimension screenSize = getScreenSize();
+		if (buffer == null || buffer.length < screenSize.width * screenSize.height)
+			buffer = new int[screenSize.width * screenSize.height];
+		
+		Image image = new Image(buffer, screenSize.width, screenSize.height);
+		for (Rectangle region : regions)
+		{
+			Image capture = wrapImage(getBufferedImageScreenshot(region));
+			image.setARGBs(region.x, region.y, capture);
+		}
 		return image;
 	}
 	
 	
 	
+	/** Returns the size of the Users main screen in pixels. */
+	public static Dimension getScreenSize()
+	{
+		return Toolkit.getDefaultToolkit().getScreenSize();
+	}
+	
+	
+	
+	/**
+	 * Returns an Image that is backed by the raster of the given BufferedImage, the pixels are not copied.
+	 * If the raster does not consist of packed ARGB- or RGB-ints (i.e. BGR), the pixels are converted into a new array instead.
+	 */
+	public static Image wrapImage(BufferedImage image)
+	{
+		int type = image.getType();
+		if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+				&& image.getRaster().getDataBuffer() instanceof DataBufferInt
+				&& image.getSampleModel() instanceof SinglePixelPackedSampleModel)
+		{
+			DataBufferInt dbb = (DataBufferInt) image.getRaster().getDataBuffer();
+			SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) image.getSampleModel();
+			int offset = dbb.getOffset() + sampleModel.getOffset(
+					-image.getRaster().getSampleModelTranslateX(), -image.getRaster().getSampleModelTranslateY());
+			return new Image(dbb.getData(), offset, image.getWidth(), image.getHeight(), sampleModel.getScanlineStride());
+		}
+		
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		return new Image(pixels, width, height);
+	}
+	
+	
+	
 	/**
 	 * Used to get a Screenshot of the primary screen of the user.
 	 */
 	private static BufferedImage getBufferedImageScreenshot()
 	{
-		Rectangle screenRect = new Rectangle(Toolkit.getDefaultToolkit().getScreenSize());
+		return getBufferedImageScreenshot(new Rectangle(getScreenSize()));
+	}
+	
+	
+	
+	/**
+	 * Used to get a Screenshot of the given part of the primary screen of the user.
+	 */
+	private static BufferedImage getBufferedImageScreenshot(Rectangle screenRect)
+	{
 		BufferedImage capture = null;
 		try {
-			capture = new Robot().createScreenCapture(screenRect);
+			capture = getRobot().createScreenCapture(screenRect);
 		} catch (Exception e) {
 			//TODO handle AWTEXception and possible SecurityException 
 			DebugConsole.print("AmbientlightLogic", "getScreenshot", "Exception:\n\n" + e.toString());
@@ -59,26 +154,12 @@ public class ScreenshotHelper
 		return capture;
 	}
 	
-
 	
-	private static Color[][] getArrayFromImage(BufferedImage image)
+	
+	private static synchronized Robot getRobot() throws AWTException
 	{
-		DataBufferInt dbb = (DataBufferInt) image.getRaster().getDataBuffer();
-		final int[] pixels = dbb.getData();
-		final int width = image.getWidth();
-		final int height = image.getHeight();
-		int counter = 0;
-		
-		Color[][] result = new Color[height][width];
-		for (int i = 0; i < height; i++)
-		{
-			for (int j = 0; j < width; j++)
-			{
-				result[i][j] = new Color(pixels[counter]);
-				counter++;
-			}
-		}
-		
-		return result;
+		if (_robot == null)
+			_robot = new Robot();
+		return _robot;
 	}
-}
+}
\ No newline at end of file
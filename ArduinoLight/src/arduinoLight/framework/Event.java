@@ -10,9 +10,10 @@ package arduinoLight.framework;
  */
 public abstract class Event implements Runnable
 {
-	//TODO event: hashcode has no use currently.
 	private final int _hashCode;
 	private final String _eventDescription;
+	private final Object _source;
+	private final String _eventName;
 	
 	
 	
@@ -28,6 +29,31 @@ public abstract class Event implements Runnable
 	{
 		_hashCode = source.hashCode() + eventName.hashCode();
 		_eventDescription = eventName + " in: '" + source.toString() + "'";
+		_source = source;
+		_eventName = eventName;
+	}
+	
+	
+	
+	/** Returns the object that fired the event. */
+	public Object getSource()
+	{
+		return _source;
+	}
+	
+	/** Returns the name of the event. */
+	public String getEventName()
+	{
+		return _eventName;
+	}
+	
+	/**
+	 * Returns true if the given Event was fired by the same source object (identity) and has the same name,
+	 * which means that it supersedes this Event if it is newer (see {@link EventDispatchHandler#dispatchCoalesced(Event)}).
+	 */
+	public boolean isSameEvent(Event other)
+	{
+		return other != null && _source == other._source && _eventName.equals(other._eventName);
 	}
 	
 	
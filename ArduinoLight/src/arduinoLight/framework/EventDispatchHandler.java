@@ -1,23 +1,60 @@
 package arduinoLight.framework;
 
+import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import arduinoLight.util.DebugConsole;
 
 
 /**
  * This class is a singleton and provides global access to dispatch Events. 
- * A thread pool is used to fire dispatched Events.
- * Listeners to events are notified from the threads in the thread pool, 
+ * A fixed amount of worker threads is used to fire dispatched Events.
+ * Listeners to events are notified from the worker threads, 
  * not from the thread where the event originated. This leads to faster execution in
  * performance-critcal code sections.
- * Events are fired FIFO.
- * thread-safety: This class is thread-safe through delegation.
+ * All Events of the same source are fired by the same worker, so they are fired FIFO and never concurrently.
+ * The {@link OverflowPolicy} decides what happens if more than QUEUE_CAPACITY Events are pending at a worker.
+ * By default, no Event is lost; high-frequency Events should be dispatched coalesced instead, which keeps
+ * the amount of pending Events bounded, even if a listener is slow.
+ * thread-safety: This class is thread-safe.
  */
 public class EventDispatchHandler implements ShutdownListener
 {
+	/** The amount of worker threads. */
+	public static final int WORKER_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	/** The amount of pending Events per worker at which the OverflowPolicy applies. */
+	public static final int QUEUE_CAPACITY = 256;
+	
+	/** Decides what happens if an Event is dispatched while the queue of its worker is full. */
+	public enum OverflowPolicy
+	{
+		/** The queue grows beyond its capacity, no Event is lost. This is the default. */
+		GROW,
+		/**
+		 * The oldest pending Event of the worker is dropped. This includes structural Events like ChannelsChanged,
+		 * so listeners can get out of sync.
+		 */
+		DROP_OLDEST,
+		/**
+		 * The dispatching thread waits until there is space in the queue.
+		 * A listener that dispatches waits as well (unless the Event goes to its own worker), so this can deadlock
+		 * if listeners of two workers dispatch to each other while both queues are full.
+		 */
+		BLOCK,
+		/** A pending Event with the same source and name is replaced, otherwise the oldest pending Event is dropped. */
+		COALESCE
+	}
+	
 	private static EventDispatchHandler _instance;
-	private final ExecutorService _executor = Executors.newCachedThreadPool();
+	private final Worker[] _workers = new Worker[WORKER_COUNT];
+	private volatile OverflowPolicy _overflowPolicy = OverflowPolicy.GROW;
+	private final AtomicLong _droppedEvents = new AtomicLong();
+	/** One slot for every source and event name with a pending coalesced Event, removed when it is drained. */
+	private final ConcurrentMap<SlotKey, CoalescingSlot> _slots = new ConcurrentHashMap<>();
 	
 	
 	
@@ -28,6 +65,12 @@ public class EventDispatchHandler implements ShutdownListener
 	{
 		DebugConsole.printh("EventDispatchHandler", "<init>", "initializing EventDispatchHandler");
 		ShutdownHandler.getInstance().addShutdownListener(this);
+		
+		for (int i = 0; i < _workers.length; i++)
+		{
+			_workers[i] = new Worker(i);
+			_workers[i].start();
+		}
 	}
 	
 	
@@ -48,10 +91,69 @@ public class EventDispatchHandler implements ShutdownListener
 	
 	/**
 	 * Dispatches a given Event for later concurrent execution. 
+	 * Events of the same source are executed in the order they were dispatched.
 	 */
 	public void dispatch(Event event)
 	{
-		_executor.execute(event);
+		getWorker(event.getSource()).enqueue(event);
+	}
+	
+	
+	
+	/**
+	 * Dispatches a given Event for later concurrent execution, but only the latest of all pending Events
+	 * with the same source and name is executed (see {@link Event#isSameEvent(Event)}).
+	 * Events of the same source and name are executed in order, one at a time.
+	 * This is intended for high-frequency events where only the latest value is of interest, i.e. ColorChanged.
+	 */
+	public void dispatchCoalesced(Event event)
+	{
+		SlotKey key = new SlotKey(event.getSource(), event.getEventName());
+		CoalescingSlot slot = _slots.get(key);
+		if (slot == null)
+		{
+			CoalescingSlot newSlot = new CoalescingSlot(key, getWorker(event.getSource()));
+			slot = _slots.putIfAbsent(key, newSlot);
+			if (slot == null)
+				slot = newSlot;
+		}
+		slot.offer(event);
+	}
+	
+	
+	
+	/** Sets what happens if an Event is dispatched while the queue of its worker is full. */
+	public void setOverflowPolicy(OverflowPolicy policy)
+	{
+		if (policy == null)
+			throw new IllegalArgumentException("policy was null.");
+		
+		_overflowPolicy = policy;
+	}
+	
+	
+	
+	public OverflowPolicy getOverflowPolicy()
+	{
+		return _overflowPolicy;
+	}
+	
+	
+	
+	/** Returns the amount of Events that were dropped or replaced because a queue was full. */
+	public long getDroppedEvents()
+	{
+		return _droppedEvents.get();
+	}
+	
+	
+	
+	/** Returns the worker that executes all Events of the given source. */
+	private Worker getWorker(Object source)
+	{
+		int hash = System.identityHashCode(source);
+		hash ^= hash >>> 16;
+		return _workers[(hash & Integer.MAX_VALUE) % _workers.length];
 	}
 	
 	
@@ -61,10 +163,231 @@ public class EventDispatchHandler implements ShutdownListener
 	{		
 		ShutdownHandler.getInstance().verifyShutdown();
 		
-		_executor.shutdown();
+		for (Worker worker : _workers)
+		{
+			worker.shutdown();
+		}
 		_instance = null;
 	}
 	
+	//----------------------------------------------------------
+	/**
+	 * Holds the latest pending Event of one source and name.
+	 * At most one task per slot is queued at its worker; it executes the pending Event and queues itself again
+	 * if another one was offered meanwhile. A drained slot is removed, so it does not keep its source reachable.
+	 * A slot that is removed while an Event is offered to it still executes that Event.
+	 */
+	private class CoalescingSlot implements Runnable
+	{
+		private final SlotKey _key;
+		private final Worker _worker;
+		private final AtomicReference<Event> _pending = new AtomicReference<>();
+		private final AtomicBoolean _scheduled = new AtomicBoolean(false);
+		
+		public CoalescingSlot(SlotKey key, Worker worker)
+		{
+			_key = key;
+			_worker = worker;
+		}
+		
+		public void offer(Event event)
+		{
+			_pending.set(event); //replaces an Event that is not executed yet
+			if (_scheduled.compareAndSet(false, true))
+				_worker.enqueue(this);
+		}
+		
+		@Override
+		public void run()
+		{
+			try
+			{
+				Event event = _pending.getAndSet(null);
+				if (event != null)
+					event.run();
+			}
+			finally //a throwing listener must not stop the slot
+			{
+				_scheduled.set(false);
+				//An Event might have been offered after getAndSet, but before the flag was reset.
+				if (_pending.get() != null && _scheduled.compareAndSet(false, true))
+					_worker.enqueue(this);
+				else
+					_slots.remove(_key, this);
+			}
+		}
+	}
+	
+	/**
+	 * A thread with a queue of tasks, which are executed one after another. The queue is bounded by the OverflowPolicy.
+	 * The tasks of CoalescingSlots are never dropped and do not count against the capacity,
+	 * because there is at most one per slot and dropping one would stop its slot forever.
+	 */
+	private class Worker extends Thread
+	{
+		private final ArrayDeque<Runnable> _queue = new ArrayDeque<>();
+		private int _droppable; //amount of tasks in the queue that are not CoalescingSlots
+		private boolean _shutdown;
+		
+		public Worker(int index)
+		{
+			super("EventDispatchHandler-" + index);
+			setDaemon(true);
+		}
+		
+		public synchronized void enqueue(Runnable task)
+		{
+			if (_shutdown)
+				return;
+			
+			if (task instanceof Event)
+			{
+				while (_droppable >= QUEUE_CAPACITY)
+				{
+					OverflowPolicy policy = _overflowPolicy;
+					if (policy == OverflowPolicy.GROW)
+					{
+						break;
+					}
+					else if (policy == OverflowPolicy.BLOCK && Thread.currentThread() != this) //a listener must not wait for itself
+					{
+						try
+						{
+							wait();
+						}
+						catch (InterruptedException e)
+						{
+							Thread.currentThread().interrupt();
+							_droppedEvents.incrementAndGet();
+							return;
+						}
+						if (_shutdown)
+							return;
+					}
+					else if (policy == OverflowPolicy.COALESCE && replace((Event) task))
+					{
+						return;
+					}
+					else
+					{
+						dropOldest();
+					}
+				}
+				_droppable++;
+			}
+			_queue.addLast(task);
+			notifyAll();
+		}
+		
+		/** Replaces a pending Event with the same source and name by the given one. */
+		private boolean replace(Event event)
+		{
+			Iterator<Runnable> it = _queue.iterator();
+			while (it.hasNext())
+			{
+				Runnable task = it.next();
+				if (task instanceof Event && ((Event) task).isSameEvent(event))
+				{
+					it.remove();
+					_queue.addLast(event);
+					_droppedEvents.incrementAndGet();
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		private void dropOldest()
+		{
+			Iterator<Runnable> it = _queue.iterator();
+			while (it.hasNext())
+			{
+				if (it.next() instanceof Event)
+				{
+					it.remove();
+					_droppable--;
+					_droppedEvents.incrementAndGet();
+					return;
+				}
+			}
+		}
+		
+		/** Executes the remaining tasks and terminates afterwards. */
+		public synchronized void shutdown()
+		{
+			_shutdown = true;
+			notifyAll();
+		}
+		
+		private synchronized Runnable take() throws InterruptedException
+		{
+			while (_queue.isEmpty())
+			{
+				if (_shutdown)
+					return null;
+				wait();
+			}
+			Runnable task = _queue.pollFirst();
+			if (task instanceof Event)
+				_droppable--;
+			notifyAll(); //wakes up blocked dispatchers
+			return task;
+		}
+		
+		@Override
+		public void run()
+		{
+			try
+			{
+				Runnable task;
+				while ((task = take()) != null)
+				{
+					try
+					{
+						task.run();
+					}
+					catch (RuntimeException e)
+					{
+						DebugConsole.print("EventDispatchHandler", "run", "Exception in event listener: " + e);
+						e.printStackTrace();
+					}
+				}
+			}
+			catch (InterruptedException e)
+			{
+				DebugConsole.print("EventDispatchHandler", "run", getName() + " interrupted.");
+			}
+		}
+	}
+	
+	/** Identifies a slot by the source (identity) and name of an Event, see {@link Event#isSameEvent(Event)}. */
+	private static class SlotKey
+	{
+		private final Object _source;
+		private final String _eventName;
+		
+		public SlotKey(Object source, String eventName)
+		{
+			_source = source;
+			_eventName = eventName;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return System.identityHashCode(_source) * 31 + _eventName.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof SlotKey))
+				return false;
+			SlotKey other = (SlotKey) obj;
+			return _source == other._source && _eventName.equals(other._eventName);
+		}
+	}
+	
 	//----------------------------------------------------------
 	@Override
 	public String toString()
@@ -0,0 +1,171 @@
+package arduinoLight.framework;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically runs a task on a ScheduledExecutorService, like scheduleAtFixedRate, but without catching up.
+ * If a run takes longer than the period, the next tick is run immediately, but the ticks that were missed
+ * completely are skipped (and counted as dropped frames) instead of being executed back-to-back.
+ * Two runs are never started closer than 3/4 of the period. <br>
+ * The duration of the runs is measured. If the task is permanently slower than the period,
+ * the period is stretched to the average duration, so the task runs as often as possible without dropping.
+ * If the task gets faster again, the period returns to the requested one. <br>
+ * The scheduler stops if it is stopped, the executor is shut down or the task throws an exception.
+ * That way, several schedulers can share one executor. <br>
+ * thread-safety: The statistics can be read and the period can be changed from any thread. start() must only be called once.
+ */
+public class FrameScheduler
+{
+	private final ScheduledExecutorService _executor;
+	private final Runnable _task;
+	private volatile long _period;
+	
+	private volatile long _effectivePeriod;
+	private volatile long _averageFrameTime = 0;
+	private final AtomicLong _frames = new AtomicLong();
+	private final AtomicLong _droppedFrames = new AtomicLong();
+	private volatile boolean _stopped = false;
+	/** only accessed by the executing thread */
+	private long _nextTick;
+	
+	
+	
+	/**
+	 * @param executor  the executor that runs the task. Shut it down or call {@link #stop()} to stop the scheduler.
+	 * @param task  the task that is executed periodically
+	 * @param period  the requested period in nanoseconds
+	 */
+	public FrameScheduler(ScheduledExecutorService executor, Runnable task, long period)
+	{
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be greater than 0.");
+		
+		_executor = executor;
+		_task = task;
+		_period = period;
+		_effectivePeriod = period;
+	}
+	
+	
+	
+	/** Runs the task the first time as soon as possible, then periodically. */
+	public void start()
+	{
+		start(0);
+	}
+	
+	
+	
+	/** Runs the task the first time after the given delay in nanoseconds, then periodically. */
+	public void start(long initialDelay)
+	{
+		_executor.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				_nextTick = System.nanoTime();
+				tick();
+			}
+		}, initialDelay, TimeUnit.NANOSECONDS);
+	}
+	
+	
+	
+	/** Stops the scheduler without shutting down the executor. A run that is already in progress is completed. */
+	public void stop()
+	{
+		_stopped = true;
+	}
+	
+	
+	
+	/** Runs the task and schedules the next run. */
+	private void tick()
+	{
+		if (_stopped)
+			return;
+		
+		long start = System.nanoTime();
+		_task.run(); //if the task throws, no further run is scheduled, like scheduleAtFixedRate.
+		long end = System.nanoTime();
+		_frames.incrementAndGet();
+		
+		//exponential moving average with a weight of 1/8 for the newest frame.
+		long frameTime = end - start;
+		long average = _averageFrameTime == 0 ? frameTime : _averageFrameTime + ((frameTime - _averageFrameTime) >> 3);
+		_averageFrameTime = average;
+		_effectivePeriod = Math.max(_period, average);
+		
+		_nextTick += _effectivePeriod;
+		long behind = end - _nextTick;
+		if (behind >= _effectivePeriod)
+		{
+			long missed = behind / _effectivePeriod;
+			_droppedFrames.addAndGet(missed);
+			_nextTick += missed * _effectivePeriod;
+		}
+		//If the tick is less than a period behind, it is run immediately, but not back-to-back with a late run.
+		_nextTick = Math.max(_nextTick, start + _effectivePeriod - (_effectivePeriod >> 2));
+		
+		try
+		{
+			_executor.schedule(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					tick();
+				}
+			}, _nextTick - end, TimeUnit.NANOSECONDS);
+		}
+		catch (RejectedExecutionException e)
+		{
+			//The executor was shut down, the scheduler ends.
+		}
+	}
+	
+	
+	
+	/** Returns the amount of runs so far. */
+	public long getFrames()
+	{
+		return _frames.get();
+	}
+	
+	/** Returns the amount of ticks that were skipped because a run took too long. */
+	public long getDroppedFrames()
+	{
+		return _droppedFrames.get();
+	}
+	
+	/** Returns the average duration of a run in nanoseconds. */
+	public long getAverageFrameTime()
+	{
+		return _averageFrameTime;
+	}
+	
+	/** Returns the period that is currently used in nanoseconds. Is never less than the requested period. */
+	public long getEffectivePeriod()
+	{
+		return _effectivePeriod;
+	}
+	
+	/** Returns the requested period in nanoseconds. */
+	public long getPeriod()
+	{
+		return _period;
+	}
+	
+	/** Changes the requested period in nanoseconds. It is used from the end of the current or next run on. */
+	public void setPeriod(long period)
+	{
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be greater than 0.");
+		
+		_period = period;
+	}
+}
@@ -27,14 +27,15 @@ import javax.swing.event.PopupMenuListener;
 
 import arduinoLight.arduino.PortMap;
 import arduinoLight.arduino.SerialConnection;
-import arduinoLight.arduino.amblone.AmbloneTransmission;
+import arduinoLight.arduino.Transmission;
+import arduinoLight.arduino.amblone.AmbloneEncoder;
 import arduinoLight.util.DebugConsole;
 
 @SuppressWarnings("serial")
 public class SerialConnectionPanel extends JPanel
 {
 	private SerialConnection _connection;
-	private AmbloneTransmission _amblone;
+	private Transmission _transmission;
 	private PortMap _map;
 	
 	private AmbloneChannelPanel _amblonePanel;
@@ -45,10 +46,10 @@ public class SerialConnectionPanel extends JPanel
 	private JLabel _frequencyLabel = new JLabel("Frequency: ");
 	
 	
-	public SerialConnectionPanel(SerialConnection connection, AmbloneTransmission ambloneTransmission, PortMap map)
+	public SerialConnectionPanel(SerialConnection connection, Transmission transmission, PortMap map)
 	{
 		_connection = connection;
-		_amblone = ambloneTransmission;
+		_transmission = transmission;
 		_map = map;
 		
 		initComponents();
@@ -57,11 +58,11 @@ public class SerialConnectionPanel extends JPanel
 	private void initComponents()
 	{
 		//amblonePanel
-		_amblonePanel = new AmbloneChannelPanel(_map, AmbloneTransmission.SUPPORTED_CHANNELS);
+		_amblonePanel = new AmbloneChannelPanel(_map, AmbloneEncoder.MAX_COLORS);
 				
 		//frequencySpinner
 		_frequencySpinner = new JSpinner();
-		_frequencySpinner.setModel(new SpinnerNumberModel(100, 1, AmbloneTransmission.MAX_REFRESHRATE, 1));
+		_frequencySpinner.setModel(new SpinnerNumberModel(100, 1, Transmission.MAX_REFRESHRATE, 1));
 		
 		//portComboBox
 		ComboBoxModel<PortItem> cbModel = new DefaultComboBoxModel<PortItem>();
@@ -145,7 +146,7 @@ public class SerialConnectionPanel extends JPanel
 				if (_connection.isOpen())
 				{
 					int frequency = ((Integer) _frequencySpinner.getValue());
-					_amblone.start(_connection, frequency);
+					_transmission.start(_connection, frequency);
 					_connectButton.setText("Disconnect");
 				}
 			}
@@ -14,6 +14,12 @@ public class Color implements RGBColor
 	public static final Color GREEN = new Color(255,   0, 255,   0);
 	public static final Color BLUE  = new Color(255,   0,   0, 255);
 	
+	/**
+	 * The results of {@link #getAdjustedColor(int, int)} for every alpha and color value, at index (alpha << 8) | color.
+	 * 64 KB, computed once, so that no floating-point math is needed while transmitting.
+	 */
+	private static final byte[] ALPHA_TABLE = createAlphaTable();
+	
 	
 	
 	private final int _argb; 
@@ -28,18 +34,7 @@ public class Color implements RGBColor
 	
 	public Color(int a, int r, int g, int b)
 	{
-		a = getNormalizedInt(a);
-		r = getNormalizedInt(r);
-		g = getNormalizedInt(g);
-		b = getNormalizedInt(b);
-		
-		int argb = 0;
-		argb =         0x00ffffff  | (a << 24);
-		argb = (argb & 0xff00ffff) | (r << 16);
-		argb = (argb & 0xffff00ff) | (g << 8);
-		argb = (argb & 0xffffff00) | b;
-
-		_argb = argb;
+		_argb = getARGB(a, r, g, b);
 	}
 	
 	
@@ -78,18 +73,17 @@ public class Color implements RGBColor
 	//---------- RGBColor-Interface ----------------------------
 	public byte getCalculatedR()
 	{
-
-		return getAdjustedColor(getA(), getR());
+		return getCalculatedR(_argb);
 	}
 	
 	public byte getCalculatedG()
 	{
-		return getAdjustedColor(getA(), getG());
+		return getCalculatedG(_argb);
 	}
 	
 	public byte getCalculatedB()
 	{
-		return getAdjustedColor(getA(), getB());
+		return getCalculatedB(_argb);
 	}
 	
 	/**
@@ -123,15 +117,67 @@ public class Color implements RGBColor
 	}
 		
 	//---------- static-helper-methods -------------------------
+	/**
+	 * Packs the given values into an ARGB-int, like the constructor does, but without creating a Color.
+	 * Values that are out of bounds are set to 0 or 255.
+	 */
+	public static int getARGB(int a, int r, int g, int b)
+	{
+		a = getNormalizedInt(a);
+		r = getNormalizedInt(r);
+		g = getNormalizedInt(g);
+		b = getNormalizedInt(b);
+		
+		int argb = 0;
+		argb =         0x00ffffff  | (a << 24);
+		argb = (argb & 0xff00ffff) | (r << 16);
+		argb = (argb & 0xffff00ff) | (g << 8);
+		argb = (argb & 0xffffff00) | b;
+		return argb;
+	}
+	
+	/** Same as {@link #getCalculatedR()} for a packed ARGB-int. */
+	public static byte getCalculatedR(int argb)
+	{
+		return getAdjustedColor(argb >>> 24, (argb >>> 16) & 0xff);
+	}
+	
+	/** Same as {@link #getCalculatedG()} for a packed ARGB-int. */
+	public static byte getCalculatedG(int argb)
+	{
+		return getAdjustedColor(argb >>> 24, (argb >>> 8) & 0xff);
+	}
+	
+	/** Same as {@link #getCalculatedB()} for a packed ARGB-int. */
+	public static byte getCalculatedB(int argb)
+	{
+		return getAdjustedColor(argb >>> 24, argb & 0xff);
+	}
+	
 	/**
 	 * Directly calculates the alpha-value into the color and returns the color as a byte.
+	 * The result is looked up in a precomputed table, so this method can be used by any output encoder.
+	 * Only the lowest 8 bits of both values are used, like a byte of a packed ARGB-int.
 	 * @param alpha  an 8-bit value (0 to 255)
 	 * @param color  an 8-bit value (0 to 255)
 	 */
-	private static byte getAdjustedColor(int alpha, int color)
+	public static byte getAdjustedColor(int alpha, int color)
 	{
-		double ratio = alpha / 255.0;
-		return (byte) Math.round(color * ratio);
+		return ALPHA_TABLE[((alpha & 0xff) << 8) | (color & 0xff)];
+	}
+	
+	private static byte[] createAlphaTable()
+	{
+		byte[] table = new byte[256 * 256];
+		for (int alpha = 0; alpha < 256; alpha++)
+		{
+			double ratio = alpha / 255.0;
+			for (int color = 0; color < 256; color++)
+			{
+				table[(alpha << 8) | color] = (byte) Math.round(color * ratio);
+			}
+		}
+		return table;
 	}
 	
 	/**
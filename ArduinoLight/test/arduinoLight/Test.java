@@ -7,7 +7,7 @@ import java.util.Enumeration;
 
 import arduinoLight.arduino.PortMap;
 import arduinoLight.arduino.SerialConnection;
-import arduinoLight.arduino.amblone.AmbloneTransmission;
+import arduinoLight.arduino.Transmission;
 import arduinoLight.channel.Channel;
 import arduinoLight.channelholder.ambientlight.Ambientlight;
 import arduinoLight.channelholder.ambientlight.Areaselection;
@@ -63,12 +63,12 @@ public class Test
 		}
 		
 		PortMap map = new PortMap();
-		AmbloneTransmission amblone = new AmbloneTransmission(map);
+		Transmission transmission = new Transmission(map);
 		map.setPort(1, channel1);
 		map.setPort(0, channel2);
 		
 		
-		amblone.start(connection, 100);
+		transmission.start(connection, 100);
 		ambientlight.start(10);
 	}
 }
@@ -0,0 +1,96 @@
+package arduinoLight.arduino;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncFrameWriterTest
+{
+	/** With a slow stream, offering never blocks, stale frames are superseded and the latest frame is written. */
+	@Test
+	public void testLatestFrameWins() throws InterruptedException
+	{
+		SlowStream out = new SlowStream();
+		AsyncFrameWriter writer = new AsyncFrameWriter(out, "test");
+		writer.start();
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < 20; i++)
+			writer.offer(new byte[] {0, (byte) i, 0}, 1, 1);
+		long duration = System.nanoTime() - start;
+		Thread.sleep(100);
+		writer.stop(1000);
+		
+		Assert.assertTrue("offer blocked", duration < SlowStream.DELAY * 1000000);
+		Assert.assertEquals(19, (int) out.written.get(out.written.size() - 1));
+		Assert.assertEquals(20, out.written.size() + writer.getSupersededFrames());
+		Assert.assertEquals(out.written.size(), writer.getBytesWritten());
+		Assert.assertTrue(writer.getAverageWriteLatency() > 0);
+	}
+	
+	/** A failed write is reported by the next offer. */
+	@Test(expected = IllegalStateException.class)
+	public void testErrorIsReported() throws InterruptedException
+	{
+		AsyncFrameWriter writer = new AsyncFrameWriter(new OutputStream()
+		{
+			@Override
+			public void write(int b) throws IOException
+			{
+				throw new IOException("port removed");
+			}
+		}, "test");
+		writer.start();
+		
+		writer.offer(new byte[1], 0, 1);
+		Thread.sleep(50);
+		writer.offer(new byte[1], 0, 1);
+	}
+	
+	/** The stream is closed by the writer thread when it ends, stop reports whether it has ended in time. */
+	@Test
+	public void testStreamIsClosedByWriter() throws InterruptedException
+	{
+		SlowStream out = new SlowStream();
+		AsyncFrameWriter writer = new AsyncFrameWriter(out, "test");
+		writer.start();
+		
+		writer.offer(new byte[3], 0, 3);
+		Thread.sleep(10);
+		Assert.assertFalse(writer.stop(1)); //still writing
+		Assert.assertFalse(out.closed);
+		Assert.assertTrue(writer.stop(1000));
+		Assert.assertTrue(out.closed);
+	}
+	
+	private static class SlowStream extends OutputStream
+	{
+		static final long DELAY = 20;
+		final List<Integer> written = new CopyOnWriteArrayList<>();
+		volatile boolean closed = false;
+		
+		@Override
+		public void close()
+		{
+			closed = true;
+		}
+		
+		@Override
+		public void write(int b) throws IOException
+		{
+			try
+			{
+				Thread.sleep(DELAY);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			written.add(b);
+		}
+	}
+}
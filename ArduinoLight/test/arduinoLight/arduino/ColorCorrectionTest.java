@@ -0,0 +1,53 @@
+package arduinoLight.arduino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+
+public class ColorCorrectionTest
+{
+	@Test
+	public void testNoneKeepsOpaqueColors()
+	{
+		for (int value = 0; value < 256; value++)
+		{
+			int argb = Color.getARGB(255, value, 255 - value, value / 2);
+			Assert.assertEquals(argb, ColorCorrection.NONE.apply(argb));
+		}
+	}
+	
+	@Test
+	public void testAlphaIsCalculatedIn()
+	{
+		Color color = new Color(100, 200, 50, 0);
+		Color corrected = new Color(ColorCorrection.NONE.apply(color.getARGB()));
+		
+		Assert.assertEquals(255, corrected.getA());
+		Assert.assertEquals(color.getCalculatedR() & 0xff, corrected.getR());
+		Assert.assertEquals(color.getCalculatedG() & 0xff, corrected.getG());
+	}
+	
+	@Test
+	public void testGammaAndWhiteBalance()
+	{
+		ColorCorrection correction = new ColorCorrection(2.2, 1, 0.5, 0);
+		Color corrected = new Color(correction.apply(Color.getARGB(255, 128, 255, 255)));
+		
+		Assert.assertEquals(Math.round(255 * Math.pow(128 / 255.0, 2.2)), corrected.getR());
+		Assert.assertEquals(128, corrected.getG());
+		Assert.assertEquals(0, corrected.getB());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalGamma()
+	{
+		new ColorCorrection(0);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalFactor()
+	{
+		new ColorCorrection(1, 1.5, 1, 1);
+	}
+}
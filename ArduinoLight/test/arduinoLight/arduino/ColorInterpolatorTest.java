@@ -0,0 +1,42 @@
+package arduinoLight.arduino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+
+public class ColorInterpolatorTest
+{
+	private static final long MILLIS = 1000000;
+	private final Object _source = new Object();
+	
+	/** A color that is set 100 ms after the previous one is blended over the next 100 ms. */
+	@Test
+	public void testBlendsOverInterval()
+	{
+		ColorInterpolator interpolator = new ColorInterpolator();
+		Assert.assertEquals(Color.BLACK.getARGB(), interpolator.interpolate(_source, 1, Color.BLACK.getARGB(), 0));
+		
+		int white = Color.WHITE.getARGB();
+		Assert.assertEquals(Color.BLACK.getARGB(), interpolator.interpolate(_source, 2, white, 100 * MILLIS));
+		Color half = new Color(interpolator.interpolate(_source, 2, white, 150 * MILLIS));
+		Assert.assertEquals(255, half.getA());
+		Assert.assertEquals(127, half.getR(), 1);
+		Assert.assertTrue(interpolator.isInterpolating());
+		
+		Assert.assertEquals(white, interpolator.interpolate(_source, 2, white, 200 * MILLIS));
+		Assert.assertFalse(interpolator.isInterpolating());
+	}
+	
+	/** After a long pause or with a different channel, the color is not blended. */
+	@Test
+	public void testNoBlendingAfterPauseOrChannelChange()
+	{
+		ColorInterpolator interpolator = new ColorInterpolator();
+		interpolator.interpolate(_source, 1, Color.BLACK.getARGB(), 0);
+		long later = ColorInterpolator.MAX_INTERVAL + 1;
+		Assert.assertEquals(Color.RED.getARGB(), interpolator.interpolate(_source, 2, Color.RED.getARGB(), later));
+		
+		Assert.assertEquals(Color.BLUE.getARGB(), interpolator.interpolate(new Object(), 2, Color.BLUE.getARGB(), later));
+	}
+}
@@ -0,0 +1,90 @@
+package arduinoLight.arduino;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileTransportTest
+{
+	@Test
+	public void testPackagesAreAppended() throws IOException
+	{
+		Path file = Files.createTempFile("arduinoLight", ".bin");
+		try
+		{
+			FileTransport transport = new FileTransport();
+			transport.open(file, 115200);
+			Assert.assertTrue(transport.isOpen());
+			Assert.assertEquals(115200, transport.getBaudRate());
+			
+			transport.transmit(new byte[] {9, 1, 2, 3, 9}, 1, 3);
+			transport.transmit(new byte[] {4, 5}, 0, 2);
+			transport.close();
+			
+			Assert.assertFalse(transport.isOpen());
+			Assert.assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, Files.readAllBytes(file));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testGatheringWrite() throws IOException
+	{
+		Path file = Files.createTempFile("arduinoLight", ".bin");
+		try
+		{
+			FileTransport transport = new FileTransport();
+			transport.open(file, 0);
+			byte[][] packages = {{1, 2, 3}, new byte[200], {4, 5}};
+			transport.transmit(packages, new int[] {2, 200, 2}, 3);
+			transport.transmit(packages, new int[] {3, 0, 0}, 1);
+			transport.close();
+			
+			byte[] written = Files.readAllBytes(file);
+			Assert.assertEquals(207, written.length);
+			Assert.assertEquals(2, written[1]);
+			Assert.assertEquals(0, written[2]);
+			Assert.assertEquals(4, written[202]);
+			Assert.assertEquals(3, written[206]);
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+	
+	/** Empty packages, also the last one, must not stop the others from being written. */
+	@Test
+	public void testGatheringWriteWithEmptyPackages() throws IOException
+	{
+		Path file = Files.createTempFile("arduinoLight", ".bin");
+		try
+		{
+			FileTransport transport = new FileTransport();
+			transport.open(file, 0);
+			byte[][] packages = {{1, 2}, {3}, {4, 5}};
+			transport.transmit(packages, new int[] {2, 0}, 2);
+			transport.transmit(packages, new int[] {0, 1, 0}, 3);
+			transport.transmit(packages, new int[] {0, 0, 0}, 3);
+			transport.close();
+			
+			Assert.assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(file));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testTransmitWhenClosed()
+	{
+		new FileTransport().transmit(new byte[1], 0, 1);
+	}
+}
@@ -0,0 +1,69 @@
+package arduinoLight.arduino;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests the LinuxSerialConnection against a pty pair, which is created by a small python script.
+ * The script prints the name of the slave, reads the given amount of bytes from the master and prints them as hex.
+ */
+public class LinuxSerialConnectionTest
+{
+	private static final String _PTY_SCRIPT =
+			"import os, pty, sys\n"
+			+ "m, s = pty.openpty()\n"
+			+ "print(os.ttyname(s)); sys.stdout.flush()\n"
+			+ "data = b''\n"
+			+ "while len(data) < int(sys.argv[1]): data += os.read(m, 1024)\n"
+			+ "print(data.hex())\n";
+	
+	/** The bytes arrive unchanged, i.e. '\n' is not translated, and gathered packages arrive in order. */
+	@Test
+	public void testTransmitToPty() throws IOException, InterruptedException
+	{
+		Assume.assumeTrue(System.getProperty("os.name").startsWith("Linux"));
+		Process process;
+		try
+		{
+			process = new ProcessBuilder("python3", "-c", _PTY_SCRIPT, "7").start();
+		}
+		catch (IOException ex)
+		{
+			Assume.assumeNoException(ex); //python is not available
+			return;
+		}
+		
+		LinuxSerialConnection connection = new LinuxSerialConnection();
+		try
+		{
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			connection.open(Paths.get(reader.readLine()), 115200);
+			Assert.assertEquals(115200, connection.getBaudRate());
+			
+			connection.transmit(new byte[] {(byte) 0xF1, 0x0A, 0x0D}, 0, 3);
+			connection.transmit(new byte[][] {{0x01, 0x02}, {0x03, 0x04, 0x05}}, new int[] {2, 2}, 2);
+			
+			Assert.assertEquals("f10a0d01020304", reader.readLine());
+			Assert.assertTrue(process.waitFor(1, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			connection.close();
+			process.destroy();
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testOpenNonexistentDevice()
+	{
+		Assume.assumeTrue(System.getProperty("os.name").startsWith("Linux"));
+		new LinuxSerialConnection().open(Paths.get("/dev/arduinoLight-does-not-exist"), 115200);
+	}
+}
@@ -0,0 +1,66 @@
+package arduinoLight.arduino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.channel.Channel;
+import arduinoLight.channel.ThreadingChannel;
+
+public class PortMapTest
+{
+	@Test
+	public void testSnapshot()
+	{
+		PortMap map = new PortMap();
+		Assert.assertEquals(0, map.snapshot().length);
+		
+		Channel channel = new ThreadingChannel(0);
+		map.setPort(2, channel);
+		Channel[] snapshot = map.snapshot();
+		Assert.assertEquals(3, snapshot.length);
+		Assert.assertNull(snapshot[0]);
+		Assert.assertSame(channel, snapshot[2]);
+		Assert.assertSame(channel, map.getChannel(2));
+		Assert.assertNull(map.getChannel(10));
+		
+		//a snapshot is not changed afterwards
+		map.setPort(0, channel);
+		Assert.assertNull(snapshot[0]);
+	}
+	
+	/** Unmapped ports at the end are cut off. */
+	@Test
+	public void testClearOutput()
+	{
+		PortMap map = new PortMap();
+		map.setPort(0, new ThreadingChannel(0));
+		map.setPort(3, new ThreadingChannel(1));
+		
+		map.clearOutput(3);
+		Assert.assertEquals(1, map.snapshot().length);
+		map.setPort(0, null);
+		Assert.assertEquals(0, map.snapshot().length);
+		map.clearOutput(5);
+		Assert.assertEquals(0, map.snapshot().length);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativePort()
+	{
+		new PortMap().getChannel(-1);
+	}
+	
+	@Test
+	public void testHighestPort()
+	{
+		PortMap map = new PortMap();
+		map.setPort(PortMap.MAX_PORTS - 1, new ThreadingChannel(0));
+		Assert.assertEquals(PortMap.MAX_PORTS, map.snapshot().length);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testPortTooHigh()
+	{
+		new PortMap().setPort(Integer.MAX_VALUE, new ThreadingChannel(0));
+	}
+}
@@ -0,0 +1,117 @@
+package arduinoLight.arduino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.channel.ThreadingChannel;
+
+public class TransmissionEngineTest
+{
+	/** Every device is served with its own rate, stopping the engine stops all of them. */
+	@Test
+	public void testDevicesHaveOwnRates() throws InterruptedException
+	{
+		TransmissionEngine engine = new TransmissionEngine();
+		int[] rates = {25, 50, 100};
+		LoopbackTransport[] transports = new LoopbackTransport[rates.length];
+		for (int i = 0; i < rates.length; i++)
+		{
+			PortMap map = new PortMap();
+			map.setPort(0, new ThreadingChannel(0));
+			transports[i] = new LoopbackTransport();
+			engine.addDevice(new Transmission(map), transports[i], rates[i]);
+		}
+		
+		engine.start();
+		Thread.sleep(400);
+		engine.stop();
+		Assert.assertFalse(engine.isActive());
+		
+		long[] packages = new long[rates.length];
+		for (int i = 0; i < rates.length; i++)
+		{
+			packages[i] = transports[i].getPackagesTransmitted();
+			long expected = rates[i] * 400 / 1000;
+			Assert.assertTrue("device " + i + ": " + packages[i] + " packages", Math.abs(packages[i] - expected) <= expected / 4 + 1);
+			Assert.assertTrue(transports[i].isOpen());
+		}
+		Thread.sleep(50);
+		for (int i = 0; i < rates.length; i++)
+			Assert.assertEquals(packages[i], transports[i].getPackagesTransmitted());
+	}
+	
+	/** A device that is added while active is started, a removed device is stopped. */
+	@Test
+	public void testAddAndRemoveWhileActive() throws InterruptedException
+	{
+		TransmissionEngine engine = new TransmissionEngine();
+		PortMap map = new PortMap();
+		map.setPort(0, new ThreadingChannel(0));
+		Transmission transmission = new Transmission(map);
+		LoopbackTransport transport = new LoopbackTransport();
+		
+		engine.start();
+		engine.addDevice(transmission, transport, 100);
+		Thread.sleep(50);
+		Assert.assertTrue(transmission.isActive());
+		Assert.assertSame(transport, engine.removeDevice(transmission));
+		Assert.assertFalse(transmission.isActive());
+		Assert.assertEquals(0, engine.getDeviceCount());
+		Assert.assertTrue(transport.getPackagesTransmitted() > 0);
+		engine.stop();
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeviceCannotBeAddedTwice()
+	{
+		TransmissionEngine engine = new TransmissionEngine();
+		Transmission transmission = new Transmission(new PortMap());
+		engine.addDevice(transmission, new LoopbackTransport(), 30);
+		engine.addDevice(transmission, new LoopbackTransport(), 30);
+	}
+	
+	/** A device with a closed transport is not added, so it cannot break later starts. */
+	@Test
+	public void testClosedTransportIsNotAdded()
+	{
+		TransmissionEngine engine = new TransmissionEngine();
+		LoopbackTransport transport = new LoopbackTransport();
+		transport.close();
+		try
+		{
+			engine.addDevice(new Transmission(new PortMap()), transport, 30);
+			Assert.fail("closed transport accepted");
+		}
+		catch (IllegalArgumentException ex)
+		{
+			//expected
+		}
+		Assert.assertEquals(0, engine.getDeviceCount());
+		engine.start();
+		Assert.assertTrue(engine.isActive());
+		engine.stop();
+	}
+	
+	/** If a device cannot be started, the devices that were already started are stopped again. */
+	@Test
+	public void testFailedStartIsRolledBack()
+	{
+		TransmissionEngine engine = new TransmissionEngine();
+		Transmission first = new Transmission(new PortMap());
+		LoopbackTransport closedLater = new LoopbackTransport();
+		engine.addDevice(first, new LoopbackTransport(), 30);
+		engine.addDevice(new Transmission(new PortMap()), closedLater, 30);
+		closedLater.close();
+		try
+		{
+			engine.start();
+			Assert.fail("start with a closed transport succeeded");
+		}
+		catch (IllegalArgumentException ex)
+		{
+			//expected
+		}
+		Assert.assertFalse(engine.isActive());
+		Assert.assertFalse(first.isActive());
+	}
+}
@@ -0,0 +1,301 @@
+package arduinoLight.arduino;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.arduino.adalight.AdalightProtocol;
+import arduinoLight.arduino.amblone.AmbloneEncoder;
+import arduinoLight.channel.Channel;
+import arduinoLight.channel.ThreadingChannel;
+import arduinoLight.util.Color;
+import arduinoLight.util.Util;
+
+/**
+ * Tests the Transmission with a SerialConnection that only records the transmitted packages.
+ */
+public class TransmissionTest
+{
+	@Test
+	public void testUnchangedFramesAreSkipped() throws InterruptedException
+	{
+		RecordingConnection connection = new RecordingConnection();
+		PortMap map = new PortMap();
+		Channel channel = new ThreadingChannel(0);
+		channel.setColor(Color.RED);
+		map.setPort(0, channel);
+		
+		Transmission transmission = new Transmission(map);
+		transmission.setSkipUnchangedFrames(true);
+		transmission.start(connection, 200);
+		Thread.sleep(200);
+		channel.setColor(Color.BLUE);
+		Thread.sleep(200);
+		transmission.stop();
+		
+		//The first package is sent with 4 ports, as the state of the arduino is unknown.
+		Assert.assertEquals(3, connection.packages.size());
+		Assert.assertTrue(transmission.getSkippedFrames() > 0);
+	}
+	
+	@Test
+	public void testKeepAlive() throws InterruptedException
+	{
+		RecordingConnection connection = new RecordingConnection();
+		PortMap map = new PortMap();
+		map.setPort(0, new ThreadingChannel(0));
+		
+		Transmission transmission = new Transmission(map);
+		transmission.setSkipUnchangedFrames(true);
+		transmission.setKeepAliveInterval(0);
+		transmission.start(connection, 100);
+		Thread.sleep(100);
+		transmission.stop();
+		
+		Assert.assertTrue(connection.packages.size() > 3);
+		Assert.assertEquals(0, transmission.getSkippedFrames());
+	}
+	
+	/** With the Adalight protocol, more than 4 ports are transmitted. */
+	@Test
+	public void testAdalight() throws InterruptedException
+	{
+		RecordingConnection connection = new RecordingConnection();
+		PortMap map = new PortMap();
+		for (int i = 0; i < 100; i++)
+			map.setPort(i, new ThreadingChannel(i));
+		
+		Transmission transmission = new Transmission(map, new AdalightProtocol());
+		transmission.start(connection, 100);
+		Thread.sleep(50);
+		transmission.stop();
+		
+		Assert.assertFalse(connection.packages.isEmpty());
+		Assert.assertEquals(AdalightProtocol.HEADER_SIZE + 300, connection.packages.get(0).length);
+	}
+	
+	/** Any Transport can be used, the stopped transmission returns it. */
+	@Test
+	public void testLoopbackTransport() throws InterruptedException
+	{
+		LoopbackTransport transport = new LoopbackTransport();
+		PortMap map = new PortMap();
+		Channel channel = new ThreadingChannel(0);
+		channel.setColor(Color.RED);
+		map.setPort(0, channel);
+		
+		Transmission transmission = new Transmission(map);
+		transmission.start(transport, 100);
+		Thread.sleep(50);
+		Assert.assertSame(transport, transmission.stop());
+		
+		Assert.assertTrue(transport.getPackagesTransmitted() > 0);
+		Assert.assertTrue(transport.isOpen());
+		byte[] last = transport.getLastPackage();
+		Assert.assertEquals((byte) 241, last[0]); //startflag for 1 color
+		Assert.assertEquals((byte) 255, last[1]);
+	}
+	
+	/** At 9600 baud, at most 33 worst-case amblone packages with 4 colors can be sent per second. */
+	@Test
+	public void testRateCapping() throws InterruptedException
+	{
+		Assert.assertEquals(33, Transmission.getMaxRefreshRate(9600, AmbloneEncoder.MAX_PACKAGE_SIZE));
+		
+		RecordingConnection connection = new RecordingConnection();
+		connection.baudRate = 9600;
+		PortMap map = new PortMap();
+		map.setPort(0, new ThreadingChannel(0));
+		
+		Transmission transmission = new Transmission(map);
+		transmission.start(connection, 200);
+		Assert.assertEquals(33, transmission.getRefreshRate());
+		long timeout = System.currentTimeMillis() + 5000;
+		while (transmission.getLinkUtilization() == 0 && System.currentTimeMillis() < timeout)
+			Thread.sleep(50);
+		transmission.stop();
+		
+		Assert.assertEquals(0, transmission.getRefreshRate());
+		Assert.assertTrue(transmission.getLinkUtilization() > 0);
+		Assert.assertTrue(transmission.getLinkUtilization() < 1);
+	}
+	
+	/** If nothing is sent anymore, the link utilization drops to 0. */
+	@Test
+	public void testLinkUtilizationWithoutTransmissions() throws InterruptedException
+	{
+		PortMap map = new PortMap();
+		map.setPort(0, new ThreadingChannel(0));
+		LoopbackTransport transport = new LoopbackTransport(9600);
+		
+		Transmission transmission = new Transmission(map);
+		transmission.setSkipUnchangedFrames(true);
+		transmission.setKeepAliveInterval(60000);
+		transmission.start(transport, 30);
+		long timeout = System.currentTimeMillis() + 5000;
+		while (transmission.getLinkUtilization() == 0 && System.currentTimeMillis() < timeout)
+			Thread.sleep(50);
+		Assert.assertTrue(transmission.getLinkUtilization() > 0);
+		while (transmission.getLinkUtilization() > 0 && System.currentTimeMillis() < timeout)
+			Thread.sleep(50);
+		transmission.stop();
+		
+		Assert.assertEquals(0, transmission.getLinkUtilization(), 0);
+	}
+	
+	/** If ports are mapped after start, the refresh rate is capped for the larger packages, with both schedulings. */
+	@Test
+	public void testRateCappingAfterPortsAreAdded() throws InterruptedException
+	{
+		int maxRefreshRate = Transmission.getMaxRefreshRate(9600, AdalightProtocol.HEADER_SIZE + 100 * 3);
+		Assert.assertEquals(2, maxRefreshRate);
+		for (boolean adaptive : new boolean[] {false, true})
+		{
+			RecordingConnection connection = new RecordingConnection();
+			connection.baudRate = 9600;
+			PortMap map = new PortMap();
+			map.setPort(0, new ThreadingChannel(0));
+			
+			Transmission transmission = new Transmission(map, new AdalightProtocol());
+			transmission.setAdaptiveScheduling(adaptive);
+			transmission.start(connection, 90);
+			Assert.assertEquals(90, transmission.getRefreshRate());
+			
+			for (int i = 1; i < 100; i++)
+				map.setPort(i, new ThreadingChannel(i));
+			long timeout = System.currentTimeMillis() + 5000;
+			while (transmission.getRefreshRate() != maxRefreshRate && System.currentTimeMillis() < timeout)
+				Thread.sleep(10);
+			int refreshRate = transmission.getRefreshRate();
+			transmission.stop();
+			
+			Assert.assertEquals(maxRefreshRate, refreshRate);
+		}
+	}
+	
+	/** If the rate is capped on a shared executor, the ticks keep their offset from the start, as a fraction of the period. */
+	@Test
+	public void testRateCappingKeepsPhase() throws InterruptedException
+	{
+		final List<Long> times = new CopyOnWriteArrayList<>();
+		LoopbackTransport transport = new LoopbackTransport(115200)
+		{
+			@Override
+			public synchronized void transmit(byte[] bytes, int offset, int length)
+			{
+				times.add(System.nanoTime());
+				super.transmit(bytes, offset, length);
+			}
+		};
+		PortMap map = new PortMap();
+		map.setPort(0, new ThreadingChannel(0));
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		Transmission transmission = new Transmission(map, new AdalightProtocol());
+		
+		long start = System.nanoTime();
+		transmission.start(transport, 200, executor, Util.getPeriod(200) / 2);
+		for (int i = 1; i < 50; i++)
+			map.setPort(i, new ThreadingChannel(i));
+		long timeout = System.currentTimeMillis() + 5000;
+		while (transmission.getRefreshRate() != 66 && System.currentTimeMillis() < timeout) //capped while the ports are added
+			Thread.sleep(10);
+		int refreshRate = transmission.getRefreshRate();
+		int capped = times.size();
+		Thread.sleep(500);
+		transmission.stop();
+		executor.shutdown();
+		
+		Assert.assertEquals(66, refreshRate);
+		long period = Util.getPeriod(66);
+		List<Long> cappedTimes = times.subList(capped + 1, times.size());
+		int inPhase = 0;
+		for (long time : cappedTimes)
+		{
+			long deviation = (time - start - period / 2) % period;
+			if (Math.min(deviation, period - deviation) < period / 5)
+				inPhase++;
+		}
+		Assert.assertTrue(inPhase + " of " + cappedTimes.size() + " in phase", inPhase >= cappedTimes.size() * 4 / 5);
+	}
+	
+	/**
+	 * At the capped rate, the packages take almost the whole period, but scheduling jitter must not drop frames.
+	 * Only a stall of the test machine may make a few frames be skipped.
+	 */
+	@Test
+	public void testCappedRateDoesNotDropFrames() throws InterruptedException
+	{
+		PortMap map = new PortMap();
+		for (int i = 0; i < 150; i++)
+			map.setPort(i, new ThreadingChannel(i));
+		LoopbackTransport transport = new LoopbackTransport(500000);
+		
+		Transmission transmission = new Transmission(map, new AdalightProtocol());
+		transmission.start(transport, 240);
+		Assert.assertEquals(98, transmission.getRefreshRate());
+		Thread.sleep(500); //warm up
+		long sentBefore = transport.getPackagesTransmitted();
+		long rateLimitedBefore = transmission.getRateLimitedFrames();
+		Thread.sleep(2000);
+		transmission.stop();
+		
+		long sent = transport.getPackagesTransmitted() - sentBefore;
+		long rateLimited = transmission.getRateLimitedFrames() - rateLimitedBefore;
+		Assert.assertTrue(sent + " packages", sent > 150);
+		Assert.assertTrue(rateLimited + " of " + sent + " frames dropped", rateLimited * 20 <= sent);
+	}
+	
+	/** After stop, nothing is transmitted anymore, also with adaptive scheduling. */
+	@Test
+	public void testNothingIsSentAfterStop() throws InterruptedException
+	{
+		for (boolean adaptive : new boolean[] {false, true})
+		{
+			PortMap map = new PortMap();
+			map.setPort(0, new ThreadingChannel(0));
+			LoopbackTransport transport = new LoopbackTransport();
+			
+			Transmission transmission = new Transmission(map);
+			transmission.setAdaptiveScheduling(adaptive);
+			transmission.start(transport, 5);
+			Thread.sleep(50);
+			transmission.stop();
+			Thread.sleep(20); //a run that was in progress is completed
+			long packages = transport.getPackagesTransmitted();
+			Thread.sleep(300); //the next tick was due 200 ms after start
+			
+			Assert.assertTrue(packages > 0);
+			Assert.assertEquals(packages, transport.getPackagesTransmitted());
+		}
+	}
+	
+	private static class RecordingConnection extends SerialConnection
+	{
+		final List<byte[]> packages = new CopyOnWriteArrayList<>();
+		int baudRate = 0;
+		
+		@Override
+		public synchronized int getBaudRate()
+		{
+			return baudRate;
+		}
+		
+		@Override
+		public synchronized boolean isOpen()
+		{
+			return true;
+		}
+		
+		@Override
+		public synchronized void transmit(byte[] bytes, int offset, int length)
+		{
+			byte[] copy = new byte[length];
+			System.arraycopy(bytes, offset, copy, 0, length);
+			packages.add(copy);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package arduinoLight.arduino.adalight;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+
+public class AdalightProtocolTest
+{
+	@Test
+	public void testHeaderAndColors()
+	{
+		int count = 300;
+		int[] argbs = new int[count];
+		for (int i = 0; i < count; i++)
+			argbs[i] = Color.getARGB(255, i & 0xff, 0, 255);
+		argbs[1] = new Color(100, 200, 50, 0).getARGB();
+		
+		AdalightProtocol protocol = new AdalightProtocol();
+		byte[] buffer = new byte[protocol.getMaxPackageSize(count) + 2];
+		int length = protocol.encode(argbs, count, buffer, 2);
+		
+		Assert.assertEquals(AdalightProtocol.HEADER_SIZE + 3 * count, length);
+		Assert.assertEquals('A', buffer[2]);
+		Assert.assertEquals('d', buffer[3]);
+		Assert.assertEquals('a', buffer[4]);
+		Assert.assertEquals(1, buffer[5]); //299 = 0x012b
+		Assert.assertEquals(0x2b, buffer[6]);
+		Assert.assertEquals(0x01 ^ 0x2b ^ 0x55, buffer[7]);
+		
+		Color alpha = new Color(argbs[1]);
+		Assert.assertEquals(alpha.getCalculatedR(), buffer[8 + 3]);
+		Assert.assertEquals(alpha.getCalculatedG(), buffer[8 + 4]);
+		Assert.assertEquals((byte) 299, buffer[8 + 3 * 299]);
+		Assert.assertEquals((byte) 255, buffer[8 + 3 * 299 + 2]);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoColors()
+	{
+		new AdalightProtocol().encode(new int[0], 0, new byte[AdalightProtocol.HEADER_SIZE], 0);
+	}
+}
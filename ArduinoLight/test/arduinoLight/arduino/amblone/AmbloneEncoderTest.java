@@ -0,0 +1,80 @@
+package arduinoLight.arduino.amblone;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+import arduinoLight.util.RGBColor;
+
+/**
+ * Tests if the AmbloneEncoder produces the same packages as the AmblonePackage.
+ */
+public class AmbloneEncoderTest
+{
+	private final RGBColor[] _colors = {
+			new Color(255, 241, 51, 0x99),
+			new Color(255, 1, 2, 3),
+			new Color(255, 244, 0, 242),
+			new Color(100, 255, 12, 34)};
+	
+	@Test
+	public void testArrayMatchesPackage()
+	{
+		for (int count = 1; count <= 4; count++)
+		{
+			byte[] expected = new AmblonePackage(Arrays.asList(_colors).subList(0, count)).toByteArray();
+			byte[] buffer = new byte[AmbloneEncoder.MAX_PACKAGE_SIZE + 3];
+			int length = AmbloneEncoder.encode(_colors, count, buffer, 3);
+			
+			Assert.assertArrayEquals(expected, Arrays.copyOfRange(buffer, 3, 3 + length));
+		}
+	}
+	
+	@Test
+	public void testARGBsMatchPackage()
+	{
+		int[] argbs = new int[_colors.length];
+		for (int i = 0; i < argbs.length; i++)
+			argbs[i] = ((Color) _colors[i]).getARGB();
+		
+		byte[] expected = new AmblonePackage(Arrays.asList(_colors)).toByteArray();
+		byte[] buffer = new byte[AmbloneEncoder.MAX_PACKAGE_SIZE];
+		int length = AmbloneEncoder.encode(argbs, argbs.length, buffer, 0);
+		
+		Assert.assertArrayEquals(expected, Arrays.copyOf(buffer, length));
+	}
+	
+	@Test
+	public void testDirectByteBufferMatchesPackage()
+	{
+		byte[] expected = new AmblonePackage(Arrays.asList(_colors)).toByteArray();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(AmbloneEncoder.MAX_PACKAGE_SIZE);
+		int length = AmbloneEncoder.encode(_colors, 4, buffer);
+		
+		Assert.assertEquals(expected.length, length);
+		Assert.assertEquals(length, buffer.position());
+		byte[] actual = new byte[length];
+		buffer.flip();
+		buffer.get(actual);
+		Assert.assertArrayEquals(expected, actual);
+	}
+	
+	@Test
+	public void testEscaping()
+	{
+		byte[] buffer = new byte[AmbloneEncoder.MAX_PACKAGE_SIZE];
+		int length = AmbloneEncoder.encode(_colors, 1, buffer, 0);
+		byte[] expected = {(byte) 241, (byte) 0x99, (byte) 241, (byte) 0x99, 51, (byte) 0x99, (byte) 0x99, 51};
+		
+		Assert.assertArrayEquals(expected, Arrays.copyOf(buffer, length));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoColors()
+	{
+		AmbloneEncoder.encode(_colors, 0, new byte[AmbloneEncoder.MAX_PACKAGE_SIZE], 0);
+	}
+}
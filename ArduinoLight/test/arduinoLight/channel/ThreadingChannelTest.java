@@ -0,0 +1,92 @@
+package arduinoLight.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+
+public class ThreadingChannelTest
+{
+	@Test
+	public void testColorVersion()
+	{
+		Channel channel = new ThreadingChannel(0);
+		long version = channel.getColorVersion();
+		
+		channel.setColor(Color.RED);
+		Assert.assertEquals(version + 1, channel.getColorVersion());
+		channel.setColor(Color.RED);
+		Assert.assertEquals(version + 2, channel.getColorVersion());
+	}
+	
+	@Test
+	public void testARGB()
+	{
+		Channel channel = new ThreadingChannel(0);
+		channel.setARGB(Color.RED.getARGB());
+		Assert.assertEquals(Color.RED, channel.getColor());
+		
+		channel.setColor(Color.BLUE);
+		Assert.assertEquals(Color.BLUE.getARGB(), channel.getARGB());
+		Assert.assertSame(channel.getColor(), channel.getColor());
+	}
+	
+	/** Synchronous listeners are notified before setColor returns, on the same thread. */
+	@Test
+	public void testSynchronousColorListener()
+	{
+		final Thread setter = Thread.currentThread();
+		final List<Color> received = new ArrayList<>();
+		ColorListener listener = new ColorListener()
+		{
+			@Override
+			public void colorChanged(Object sender, Color newColor)
+			{
+				Assert.assertSame(setter, Thread.currentThread());
+				received.add(newColor);
+			}
+		};
+		Channel channel = new ThreadingChannel(0);
+		channel.addSynchronousColorListener(listener);
+		
+		channel.setColor(Color.RED);
+		channel.setColor(Color.BLUE);
+		Assert.assertEquals(2, received.size());
+		Assert.assertEquals(Color.BLUE, received.get(1));
+		
+		channel.removeSynchronousColorListener(listener);
+		channel.setColor(Color.GREEN);
+		Assert.assertEquals(2, received.size());
+	}
+	
+	/** A throwing synchronous listener neither reaches the setter nor keeps the other listeners from being notified. */
+	@Test
+	public void testThrowingSynchronousColorListener()
+	{
+		final List<Color> received = new ArrayList<>();
+		Channel channel = new ThreadingChannel(0);
+		channel.addSynchronousColorListener(new ColorListener()
+		{
+			@Override
+			public void colorChanged(Object sender, Color newColor)
+			{
+				throw new IllegalStateException("listener failed");
+			}
+		});
+		channel.addSynchronousColorListener(new ColorListener()
+		{
+			@Override
+			public void colorChanged(Object sender, Color newColor)
+			{
+				received.add(newColor);
+			}
+		});
+		
+		channel.setColor(Color.RED);
+		Assert.assertEquals(1, received.size());
+		Assert.assertEquals(Color.RED, channel.getColor());
+	}
+}
@@ -1,5 +1,7 @@
 package arduinoLight.channelholder.ambientlight;
 
+import java.awt.Rectangle;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -82,6 +84,35 @@ public class AreaselectionTest
 		Assert.assertArrayEquals(expected, getArrayFromAreaselection(as));
 	}
 	
+	@Test
+	public void testGetCellBounds()
+	{
+		Areaselection as = new Areaselection(3, 2);
+		
+		Assert.assertEquals(new Rectangle(0, 0, 50, 33), as.getCellBounds(0, 0, 100, 100));
+		Assert.assertEquals(new Rectangle(50, 33, 50, 34), as.getCellBounds(1, 1, 100, 100));
+		Assert.assertEquals(new Rectangle(50, 67, 50, 33), as.getCellBounds(1, 2, 100, 100));
+	}
+	
+	@Test
+	public void testVersionChangesOnEveryChange()
+	{
+		Areaselection as = new Areaselection(2, 2);
+		long initial = as.getVersion();
+		as.setCell(0, 0, true);
+		long afterSet = as.getVersion();
+		as.setAll(false);
+		long afterSetAll = as.getVersion();
+		as.changeSize(3, 3);
+		long afterResize = as.getVersion();
+		as.changeSize(3, 3); //same size, nothing changed
+		
+		Assert.assertNotEquals(initial, afterSet);
+		Assert.assertNotEquals(afterSet, afterSetAll);
+		Assert.assertNotEquals(afterSetAll, afterResize);
+		Assert.assertEquals(afterResize, as.getVersion());
+	}
+	
 	private boolean[][] getArrayFromAreaselection(Areaselection selection)
 	{
 		boolean[][] array = new boolean[selection.getRows()][selection.getColumns()];
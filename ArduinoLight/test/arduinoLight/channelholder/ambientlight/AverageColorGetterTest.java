@@ -0,0 +1,108 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+
+/**
+ * Tests the average color calculation, with and without an IntegralImage.
+ */
+public class AverageColorGetterTest
+{
+	@Test
+	public void testSingleColor()
+	{
+		Image image = new Image(4, 4, Color.RED);
+		Areaselection selection = new Areaselection(2, 2);
+		selection.setCell(1, 1, true);
+		
+		Assert.assertEquals(Color.RED, new AverageColorGetter(image).getAverageColor(selection));
+		Assert.assertEquals(Color.RED, new AverageColorGetter(image, new IntegralImage(image)).getAverageColor(selection));
+	}
+	
+	@Test
+	public void testTopHalf()
+	{
+		Image image = new Image(4, 4, Color.BLACK);
+		image.setARGBs(0, 0, 4, 2, filled(8, Color.WHITE.getARGB()), 0);
+		Areaselection selection = new Areaselection(2, 1);
+		selection.setCell(0, 0, true);
+		
+		Assert.assertEquals(Color.WHITE, new AverageColorGetter(image).getAverageColor(selection));
+		Assert.assertEquals(Color.WHITE, new AverageColorGetter(image, new IntegralImage(image)).getAverageColor(selection));
+	}
+	
+	/**
+	 * The IntegralImage has to yield exactly the same colors as reading every pixel.
+	 */
+	@Test
+	public void testIntegralImageMatchesDirectCalculation()
+	{
+		Random random = new Random(42);
+		int[] pixels = new int[37 * 23];
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = random.nextInt();
+		Image image = new Image(pixels, 37, 23);
+		AverageColorGetter direct = new AverageColorGetter(image);
+		AverageColorGetter integral = new AverageColorGetter(image, new IntegralImage(image));
+		
+		Areaselection selection = new Areaselection(3, 5);
+		for (int y = 0; y < 3; y++)
+		{
+			for (int x = 0; x < 5; x++)
+			{
+				selection.setCell(x, y, random.nextBoolean());
+				Assert.assertEquals(direct.getAverageColor(selection), integral.getAverageColor(selection));
+			}
+		}
+	}
+	
+	@Test
+	public void testStridedSamplingOfUniformArea()
+	{
+		Image image = new Image(100, 100, Color.BLUE);
+		Areaselection selection = new Areaselection(1, 1);
+		selection.setAll(true);
+		
+		Assert.assertEquals(Color.BLUE, new AverageColorGetter(image, SamplingStrategy.stride(8)).getAverageColor(selection));
+		Assert.assertEquals(Color.BLUE, new AverageColorGetter(image, SamplingStrategy.jittered(8)).getAverageColor(selection));
+		Assert.assertEquals(Color.BLUE, new AverageColorGetter(image, SamplingStrategy.maxSamples(10, true)).getAverageColor(selection));
+	}
+	
+	/**
+	 * With stride 2, only the pixels with even coordinates are read.
+	 */
+	@Test
+	public void testStridedSamplingReadsGrid()
+	{
+		Image image = new Image(4, 4, Color.WHITE);
+		for (int y = 0; y < 4; y += 2)
+			for (int x = 0; x < 4; x += 2)
+				image.setPixel(x, y, Color.RED);
+		Areaselection selection = new Areaselection(1, 1);
+		selection.setAll(true);
+		
+		Assert.assertEquals(Color.RED, new AverageColorGetter(image, SamplingStrategy.stride(2)).getAverageColor(selection));
+	}
+	
+	@Test
+	public void testMaxSamplesStride()
+	{
+		SamplingStrategy strategy = SamplingStrategy.maxSamples(100, false);
+		
+		Assert.assertEquals(1, strategy.getStride(10, 10));
+		Assert.assertEquals(2, strategy.getStride(20, 20));
+		Assert.assertEquals(3, strategy.getStride(21, 20));
+	}
+	
+	private int[] filled(int length, int argb)
+	{
+		int[] array = new int[length];
+		Arrays.fill(array, argb);
+		return array;
+	}
+}
@@ -0,0 +1,99 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CaptureRegionsTest
+{
+	@Test
+	public void testNothingSelected()
+	{
+		List<Areaselection> selections = Arrays.asList(new Areaselection(2, 2));
+		
+		Assert.assertEquals(0, CaptureRegions.getRegions(selections, 100, 100).size());
+	}
+	
+	@Test
+	public void testRowIsMergedIntoOneStrip()
+	{
+		Areaselection top = new Areaselection(10, 10);
+		for (int x = 0; x < 10; x++)
+			top.setCell(x, 0, true);
+		
+		List<Rectangle> regions = CaptureRegions.getRegions(Arrays.asList(top), 1000, 1000);
+		Assert.assertEquals(1, regions.size());
+		Assert.assertEquals(new Rectangle(0, 0, 1000, 100), regions.get(0));
+	}
+	
+	/**
+	 * A border layout with one channel per side should not be captured as the whole screen.
+	 */
+	@Test
+	public void testBorderLayout()
+	{
+		List<Areaselection> selections = new ArrayList<>();
+		for (int side = 0; side < 4; side++)
+		{
+			Areaselection selection = new Areaselection(10, 10);
+			for (int i = 0; i < 10; i++)
+			{
+				switch (side)
+				{
+					case 0: selection.setCell(i, 0, true); break;
+					case 1: selection.setCell(i, 9, true); break;
+					case 2: selection.setCell(0, i, true); break;
+					case 3: selection.setCell(9, i, true); break;
+				}
+			}
+			selections.add(selection);
+		}
+		
+		List<Rectangle> regions = CaptureRegions.getRegions(selections, 1000, 1000);
+		long capturedPixels = 0;
+		for (Rectangle region : regions)
+			capturedPixels += region.width * region.height;
+		
+		Assert.assertTrue(regions.size() <= CaptureRegions.MAX_REGIONS);
+		Assert.assertTrue("less than half of the screen expected", capturedPixels < 1000 * 1000 / 2);
+		for (Areaselection selection : selections)
+			assertCovered(selection, regions, 1000);
+	}
+	
+	/**
+	 * Even if more regions than MAX_REGIONS would be needed, every cell has to be covered.
+	 */
+	@Test
+	public void testScatteredCellsAreCovered()
+	{
+		Areaselection selection = new Areaselection(9, 9);
+		for (int y = 0; y < 9; y += 2)
+			for (int x = 0; x < 9; x += 2)
+				selection.setCell(x, y, true);
+		
+		List<Rectangle> regions = CaptureRegions.getRegions(Arrays.asList(selection), 900, 900);
+		Assert.assertTrue(regions.size() <= CaptureRegions.MAX_REGIONS);
+		assertCovered(selection, regions, 900);
+	}
+	
+	private void assertCovered(Areaselection selection, List<Rectangle> regions, int areaSize)
+	{
+		for (int y = 0; y < selection.getRows(); y++)
+		{
+			for (int x = 0; x < selection.getColumns(); x++)
+			{
+				if (!selection.getCell(x, y))
+					continue;
+				Rectangle cell = selection.getCellBounds(x, y, areaSize, areaSize);
+				boolean covered = false;
+				for (Rectangle region : regions)
+					covered |= region.contains(cell);
+				Assert.assertTrue("cell " + x + "|" + y + " is not covered", covered);
+			}
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.channel.Channel;
+import arduinoLight.channel.ThreadingChannel;
+import arduinoLight.util.Color;
+
+public class ColorCalculationTaskTest
+{
+	/**
+	 * Every result has to be the same as the sequentially calculated color, at the same index.
+	 */
+	@Test
+	public void testResultsMatchSequentialCalculation()
+	{
+		Image image = new Image(10, 10, Color.BLACK);
+		for (int x = 0; x < 10; x++)
+			image.setPixel(x, 0, new Color(255, x * 20, 0, 0));
+		AverageColorGetter avgGetter = new AverageColorGetter(image);
+		
+		List<Map.Entry<Channel, Areaselection>> entries = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+		{
+			Areaselection selection = new Areaselection(10, 10);
+			selection.setCell(i, 0, true);
+			entries.add(new AbstractMap.SimpleEntry<Channel, Areaselection>(new ThreadingChannel(i), selection));
+		}
+		
+		int[] results = new int[entries.size()];
+		ForkJoinPool pool = new ForkJoinPool(4);
+		pool.invoke(new ColorCalculationTask(avgGetter, entries, results));
+		pool.shutdown();
+		
+		for (int i = 0; i < entries.size(); i++)
+			Assert.assertEquals(avgGetter.getAverageARGB(entries.get(i).getValue()), results[i]);
+	}
+}
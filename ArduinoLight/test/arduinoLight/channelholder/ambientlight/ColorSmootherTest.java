@@ -0,0 +1,66 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+
+public class ColorSmootherTest
+{
+	@Test
+	public void testFirstStepReturnsTarget()
+	{
+		ColorSmoother smoother = new ColorSmoother(false);
+		smoother.setTarget(Color.RED.getARGB());
+		
+		Assert.assertEquals(Color.RED.getARGB(), smoother.step(0));
+	}
+	
+	/** The output approaches the target monotonically and finally reaches it exactly. */
+	@Test
+	public void testConvergence()
+	{
+		for (boolean criticallyDamped : new boolean[] {false, true})
+		{
+			ColorSmoother smoother = new ColorSmoother(criticallyDamped);
+			smoother.setTarget(Color.BLACK.getARGB());
+			smoother.step(0);
+			smoother.setTarget(Color.WHITE.getARGB());
+			
+			int factor = ColorSmoother.getFactor(TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(100));
+			int last = 0;
+			for (int i = 0; i < 500; i++)
+			{
+				int red = new Color(smoother.step(factor)).getR();
+				Assert.assertTrue(red >= last);
+				last = red;
+			}
+			Assert.assertEquals(Color.WHITE.getARGB(), smoother.getOutput());
+		}
+	}
+	
+	/** The critically damped filter starts softer than the exponential moving average. */
+	@Test
+	public void testCriticallyDampedStartsSofter()
+	{
+		ColorSmoother ema = new ColorSmoother(false);
+		ColorSmoother damped = new ColorSmoother(true);
+		ema.step(0);
+		damped.step(0);
+		ema.setTarget(Color.WHITE.getARGB());
+		damped.setTarget(Color.WHITE.getARGB());
+		
+		int factor = ColorSmoother.ONE / 4;
+		Assert.assertTrue(new Color(damped.step(factor)).getR() < new Color(ema.step(factor)).getR());
+	}
+	
+	@Test
+	public void testGetFactor()
+	{
+		Assert.assertEquals(ColorSmoother.ONE, ColorSmoother.getFactor(100, 0));
+		Assert.assertEquals(0, ColorSmoother.getFactor(0, 100));
+		Assert.assertEquals(Math.round(ColorSmoother.ONE * (1 - Math.exp(-1))), ColorSmoother.getFactor(100, 100));
+	}
+}
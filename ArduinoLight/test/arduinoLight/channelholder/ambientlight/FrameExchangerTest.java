@@ -0,0 +1,55 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameExchangerTest
+{
+	@Test
+	public void testLatestFrameIsTaken() throws InterruptedException
+	{
+		FrameExchanger frames = new FrameExchanger();
+		Image first = new Image(1, 1);
+		Image second = new Image(1, 1);
+		frames.publish(first);
+		frames.publish(second);
+		
+		Assert.assertSame(second, frames.take());
+		Assert.assertEquals(1, frames.getDroppedFrames());
+	}
+	
+	/**
+	 * The producer must never get the image the consumer currently reads,
+	 * and at most three images are in use if the producer reuses the writable image.
+	 */
+	@Test
+	public void testWritableIsNeverRead() throws InterruptedException
+	{
+		FrameExchanger frames = new FrameExchanger();
+		Map<Image, Boolean> used = new IdentityHashMap<>();
+		Image read = null;
+		for (int i = 0; i < 20; i++)
+		{
+			Image writable = frames.getWritable();
+			Assert.assertTrue(writable == null || writable != read);
+			Image frame = writable != null ? writable : new Image(1, 1);
+			used.put(frame, true);
+			frames.publish(frame);
+			if (i % 3 == 0)
+				read = frames.take();
+		}
+		
+		Assert.assertTrue(used.size() <= 3);
+	}
+	
+	@Test(expected = InterruptedException.class)
+	public void testTakeWaitsUntilInterrupted() throws InterruptedException
+	{
+		FrameExchanger frames = new FrameExchanger();
+		Thread.currentThread().interrupt();
+		frames.take();
+	}
+}
@@ -62,6 +62,41 @@ public class ImageTest
 		Assert.assertEquals(4, i.getHeight());
 	}
 	
+	@Test
+	public void testIntArrayConstructorIsNotCopied()
+	{
+		int[] pixels = new int[2 * 2];
+		Image i = new Image(pixels, 2, 2);
+		pixels[3] = Color.RED.getARGB();
+		
+		Assert.assertEquals(Color.RED, i.getPixel(1, 1));
+		Assert.assertEquals(Color.RED.getARGB(), i.getARGB(1, 1));
+	}
+	
+	@Test
+	public void testStrideAndOffset()
+	{
+		//a 2x2 section at (1|1) of a 4x3 array
+		int[] pixels = new int[4 * 3];
+		pixels[4 + 1] = 1;
+		pixels[4 + 2] = 2;
+		pixels[8 + 1] = 3;
+		pixels[8 + 2] = 4;
+		Image i = new Image(pixels, 5, 2, 2, 4);
+		
+		Assert.assertEquals(2, i.getWidth());
+		Assert.assertEquals(2, i.getHeight());
+		Assert.assertEquals(1, i.getARGB(0, 0));
+		Assert.assertEquals(4, i.getARGB(1, 1));
+		Assert.assertArrayEquals(new int[] {1, 2, 3, 4}, i.getARGBs(0, 0, 2, 2, new int[4], 0));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testIntArrayTooSmall()
+	{
+		new Image(new int[3], 2, 2);
+	}
+	
 //	@Test
 //	public void testGetSelectedPixelsWithCoordinates()
 //	{
@@ -0,0 +1,49 @@
+package arduinoLight.channelholder.ambientlight;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import arduinoLight.util.Color;
+
+/**
+ * Tests the conversion from BufferedImage to Image. Does not take actual screenshots.
+ */
+public class ScreenshotHelperTest
+{
+	@Test
+	public void testWrapImageIsNotCopied()
+	{
+		BufferedImage bufferedImage = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+		Image image = ScreenshotHelper.wrapImage(bufferedImage);
+		bufferedImage.setRGB(2, 1, Color.RED.getARGB());
+		
+		Assert.assertEquals(3, image.getWidth());
+		Assert.assertEquals(2, image.getHeight());
+		Assert.assertEquals(Color.RED, image.getPixel(2, 1));
+	}
+	
+	@Test
+	public void testWrapSubimage()
+	{
+		BufferedImage bufferedImage = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+		bufferedImage.setRGB(1, 2, Color.GREEN.getARGB());
+		Image image = ScreenshotHelper.wrapImage(bufferedImage.getSubimage(1, 1, 2, 2));
+		
+		Assert.assertEquals(2, image.getWidth());
+		Assert.assertEquals(Color.GREEN, image.getPixel(0, 1));
+		Assert.assertEquals(0, image.getARGB(1, 1));
+	}
+	
+	/** The components of other int layouts must not be read as ARGB. */
+	@Test
+	public void testWrapBGRImage()
+	{
+		BufferedImage bufferedImage = new BufferedImage(2, 2, BufferedImage.TYPE_INT_BGR);
+		bufferedImage.setRGB(1, 0, Color.RED.getARGB());
+		Image image = ScreenshotHelper.wrapImage(bufferedImage);
+		
+		Assert.assertEquals(Color.RED, image.getPixel(1, 0));
+	}
+}
@@ -0,0 +1,263 @@
+package arduinoLight.framework;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EventDispatchHandlerTest
+{
+	/**
+	 * With a slow listener, pending events are dropped, but the latest one is always delivered
+	 * and the delivered events are in order.
+	 */
+	@Test
+	public void testCoalescedEventsAreOrderedAndLatestWins() throws InterruptedException
+	{
+		final Object source = new Object();
+		final List<Integer> delivered = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			final int value = i;
+			EventDispatchHandler.getInstance().dispatchCoalesced(new Event(source, "ValueChanged")
+			{
+				@Override
+				public void notifyListeners()
+				{
+					delivered.add(value);
+					sleep(1);
+				}
+			});
+		}
+		Thread.sleep(200);
+		
+		Assert.assertEquals(999, (int) delivered.get(delivered.size() - 1));
+		Assert.assertTrue("events should have been coalesced", delivered.size() < 1000);
+		for (int i = 1; i < delivered.size(); i++)
+			Assert.assertTrue("events out of order", delivered.get(i - 1) < delivered.get(i));
+	}
+	
+	@Test
+	public void testDifferentSourcesAreNotCoalesced() throws InterruptedException
+	{
+		final List<Object> delivered = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 10; i++)
+		{
+			final Object source = new Object();
+			EventDispatchHandler.getInstance().dispatchCoalesced(new Event(source, "ValueChanged")
+			{
+				@Override
+				public void notifyListeners()
+				{
+					delivered.add(source);
+				}
+			});
+		}
+		Thread.sleep(100);
+		
+		Assert.assertEquals(10, delivered.size());
+	}
+	
+	/** A listener that throws must not stop the delivery of later Events of the same source. */
+	@Test
+	public void testCoalescedEventsAfterThrowingListener() throws InterruptedException
+	{
+		Object source = new Object();
+		EventDispatchHandler.getInstance().dispatchCoalesced(new Event(source, "ValueChanged")
+		{
+			@Override
+			public void notifyListeners()
+			{
+				throw new IllegalStateException("listener failed");
+			}
+		});
+		Thread.sleep(50);
+		List<Integer> delivered = new CopyOnWriteArrayList<>();
+		EventDispatchHandler.getInstance().dispatchCoalesced(new RecordingEvent(source, "ValueChanged", 1, delivered));
+		Thread.sleep(50);
+		
+		Assert.assertEquals(1, delivered.size());
+	}
+	
+	/** After its Events were delivered, a source is not kept reachable by the handler. */
+	@Test
+	public void testSourceIsNotRetained() throws InterruptedException
+	{
+		Object source = new Object();
+		WeakReference<Object> reference = new WeakReference<>(source);
+		EventDispatchHandler.getInstance().dispatchCoalesced(new RecordingEvent(source, "ValueChanged", 1,
+				new CopyOnWriteArrayList<Integer>()));
+		source = null;
+		Thread.sleep(50);
+		
+		for (int i = 0; i < 10 && reference.get() != null; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull(reference.get());
+	}
+	
+	@Test
+	public void testEventsOfSameSourceAreOrdered() throws InterruptedException
+	{
+		final Object source = new Object();
+		final List<Integer> delivered = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 200; i++)
+		{
+			EventDispatchHandler.getInstance().dispatch(new RecordingEvent(source, "ValueChanged", i, delivered));
+		}
+		Thread.sleep(200);
+		
+		Assert.assertEquals(200, delivered.size());
+		for (int i = 0; i < delivered.size(); i++)
+			Assert.assertEquals(i, (int) delivered.get(i));
+	}
+	
+	/** By default, no Event is lost, even if the queue is full. */
+	@Test
+	public void testDefaultIsLossless() throws InterruptedException
+	{
+		EventDispatchHandler handler = EventDispatchHandler.getInstance();
+		Assert.assertEquals(EventDispatchHandler.OverflowPolicy.GROW, handler.getOverflowPolicy());
+		Object source = new Object();
+		List<Integer> delivered = new CopyOnWriteArrayList<>();
+		
+		CountDownLatch release = blockWorker(source);
+		int count = EventDispatchHandler.QUEUE_CAPACITY + 100;
+		for (int i = 0; i < count; i++)
+		{
+			handler.dispatch(new RecordingEvent(source, "ValueChanged", i, delivered));
+		}
+		release.countDown();
+		Thread.sleep(200);
+		
+		Assert.assertEquals(count, delivered.size());
+		for (int i = 0; i < count; i++)
+			Assert.assertEquals(i, (int) delivered.get(i));
+	}
+	
+	/** If the queue is full, the oldest Events are dropped and the amount of pending Events stays bounded. */
+	@Test
+	public void testDropOldest() throws InterruptedException
+	{
+		EventDispatchHandler handler = EventDispatchHandler.getInstance();
+		handler.setOverflowPolicy(EventDispatchHandler.OverflowPolicy.DROP_OLDEST);
+		try
+		{
+			Object source = new Object();
+			List<Integer> delivered = new CopyOnWriteArrayList<>();
+			long droppedBefore = handler.getDroppedEvents();
+			
+			CountDownLatch release = blockWorker(source);
+			int count = EventDispatchHandler.QUEUE_CAPACITY + 100;
+			for (int i = 0; i < count; i++)
+			{
+				handler.dispatch(new RecordingEvent(source, "ValueChanged", i, delivered));
+			}
+			release.countDown();
+			Thread.sleep(200);
+			
+			Assert.assertEquals(EventDispatchHandler.QUEUE_CAPACITY, delivered.size());
+			Assert.assertEquals(100, (int) delivered.get(0));
+			Assert.assertEquals(count - 1, (int) delivered.get(delivered.size() - 1));
+			Assert.assertEquals(100, handler.getDroppedEvents() - droppedBefore);
+		}
+		finally
+		{
+			handler.setOverflowPolicy(EventDispatchHandler.OverflowPolicy.GROW);
+		}
+	}
+	
+	/** If the queue is full, a pending Event with the same source and name is replaced. */
+	@Test
+	public void testCoalesceOnOverflow() throws InterruptedException
+	{
+		EventDispatchHandler handler = EventDispatchHandler.getInstance();
+		handler.setOverflowPolicy(EventDispatchHandler.OverflowPolicy.COALESCE);
+		try
+		{
+			Object source = new Object();
+			List<Integer> delivered = new CopyOnWriteArrayList<>();
+			
+			CountDownLatch release = blockWorker(source);
+			for (int i = 0; i < EventDispatchHandler.QUEUE_CAPACITY - 1; i++)
+			{
+				handler.dispatch(new RecordingEvent(source, "A", i, delivered));
+			}
+			handler.dispatch(new RecordingEvent(source, "B", -1, delivered));
+			handler.dispatch(new RecordingEvent(source, "B", -2, delivered));
+			release.countDown();
+			Thread.sleep(200);
+			
+			Assert.assertEquals(EventDispatchHandler.QUEUE_CAPACITY, delivered.size());
+			Assert.assertEquals(0, (int) delivered.get(0));
+			Assert.assertFalse(delivered.contains(-1));
+			Assert.assertEquals(-2, (int) delivered.get(delivered.size() - 1));
+		}
+		finally
+		{
+			handler.setOverflowPolicy(EventDispatchHandler.OverflowPolicy.GROW);
+		}
+	}
+	
+	/** Dispatches an Event of the given source that blocks its worker until the returned latch is released. */
+	private static CountDownLatch blockWorker(Object source) throws InterruptedException
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		EventDispatchHandler.getInstance().dispatch(new Event(source, "Block")
+		{
+			@Override
+			public void notifyListeners()
+			{
+				started.countDown();
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+		return release;
+	}
+	
+	private static class RecordingEvent extends Event
+	{
+		private final int _value;
+		private final List<Integer> _delivered;
+		
+		public RecordingEvent(Object source, String eventName, int value, List<Integer> delivered)
+		{
+			super(source, eventName);
+			_value = value;
+			_delivered = delivered;
+		}
+		
+		@Override
+		public void notifyListeners()
+		{
+			_delivered.add(_value);
+		}
+	}
+	
+	private static void sleep(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
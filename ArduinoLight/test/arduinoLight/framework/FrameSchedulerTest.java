@@ -0,0 +1,117 @@
+package arduinoLight.framework;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameSchedulerTest
+{
+	/**
+	 * After a slow run, the missed ticks have to be skipped instead of being run back-to-back.
+	 */
+	@Test
+	public void testSlowFrameIsNotCaughtUp() throws InterruptedException
+	{
+		final long period = TimeUnit.MILLISECONDS.toNanos(10);
+		final List<Long> starts = new CopyOnWriteArrayList<>();
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		FrameScheduler scheduler = new FrameScheduler(executor, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				starts.add(System.nanoTime());
+				if (starts.size() == 2)
+					sleep(55);
+			}
+		}, period);
+		
+		scheduler.start();
+		Thread.sleep(300);
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.SECONDS);
+		
+		Assert.assertTrue("dropped frames expected", scheduler.getDroppedFrames() >= 4);
+		Assert.assertTrue(scheduler.getEffectivePeriod() >= period);
+		for (int i = 1; i < starts.size(); i++)
+		{
+			long distance = starts.get(i) - starts.get(i - 1);
+			Assert.assertTrue("runs " + (i - 1) + " and " + i + " ran back-to-back", distance > period / 2);
+		}
+	}
+	
+	/** A run that is less than a period late is followed by the next run immediately, nothing is dropped. */
+	@Test
+	public void testSlightlyLateFrameIsRunImmediately() throws InterruptedException
+	{
+		final long period = TimeUnit.MILLISECONDS.toNanos(50);
+		final List<Long> starts = new CopyOnWriteArrayList<>();
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		FrameScheduler scheduler = new FrameScheduler(executor, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				starts.add(System.nanoTime());
+				if (starts.size() == 2)
+					sleep(60); //10 ms late, far from a whole period
+			}
+		}, period);
+		
+		scheduler.start();
+		Thread.sleep(250);
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.SECONDS);
+		
+		Assert.assertEquals(0, scheduler.getDroppedFrames());
+		long distance = starts.get(2) - starts.get(1);
+		Assert.assertTrue("the late run waited " + distance + "ns", distance < TimeUnit.MILLISECONDS.toNanos(80));
+	}
+	
+	/** A stopped scheduler does not run the task anymore, but the shared executor keeps running. */
+	@Test
+	public void testStop() throws InterruptedException
+	{
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		FrameScheduler scheduler = new FrameScheduler(executor, new Runnable()
+		{
+			@Override
+			public void run() { }
+		}, TimeUnit.MILLISECONDS.toNanos(5));
+		
+		scheduler.start();
+		Thread.sleep(50);
+		scheduler.stop();
+		Thread.sleep(20);
+		long frames = scheduler.getFrames();
+		Thread.sleep(50);
+		
+		Assert.assertTrue(frames > 0);
+		Assert.assertEquals(frames, scheduler.getFrames());
+		Assert.assertFalse(executor.isShutdown());
+		executor.shutdown();
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalPeriod()
+	{
+		new FrameScheduler(null, null, 0);
+	}
+	
+	private static void sleep(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -115,6 +115,45 @@ public class ColorTest
 		assertEquals(calculatedB, c.getCalculatedB());
 	}
 	
+	/**
+	 * Tests if the static ARGB-int helpers produce the same values as the instance methods.
+	 */
+	@Test
+	public void testStaticARGBHelpers()
+	{
+		Color c = new Color(100, 300, 12, 34);
+		int argb = Color.getARGB(100, 300, 12, 34);
+		
+		assertEquals(c.getARGB(), argb);
+		assertEquals(c.getCalculatedR(), Color.getCalculatedR(argb));
+		assertEquals(c.getCalculatedG(), Color.getCalculatedG(argb));
+		assertEquals(c.getCalculatedB(), Color.getCalculatedB(argb));
+	}
+	
+	/**
+	 * Tests if the lookup table yields the same values as the floating-point calculation.
+	 */
+	@Test
+	public void testAdjustedColorTable()
+	{
+		for (int alpha = 0; alpha < 256; alpha++)
+		{
+			for (int color = 0; color < 256; color++)
+			{
+				byte expected = (byte) Math.round(color * (alpha / 255.0));
+				assertEquals(expected, Color.getAdjustedColor(alpha, color));
+			}
+		}
+	}
+	
+	/** Only the lowest 8 bits are used, so a value out of range does not read the row of another alpha. */
+	@Test
+	public void testAdjustedColorIsMasked()
+	{
+		assertEquals(Color.getAdjustedColor(128, 0x44), Color.getAdjustedColor(128, 0x344));
+		assertEquals(Color.getAdjustedColor(0xff, 0xff), Color.getAdjustedColor(-1, -1));
+	}
+	
 	/**
 	 * Tests if the toString-method returns the expected value.
 	 */